@@ -0,0 +1,135 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 间接排序（argsort）的实现 - 不移动键本身，而是对下标数组排序，返回排序后的下标排列，供按同一顺序重排多列数据使用。
+ *
+ * 下标数组用归并排序，比较通过{@link Sort.IndexComparator}读取键，全程只操作int下标，不装箱。
+ * 归并排序稳定：键相同的下标保持升序。并行版本见{@link ParallelMergeSort}。
+ */
+final class ArgSort {
+
+    /**
+     * 区间长度不超过该值时改用插入排序
+     */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * 并行版本中区间长度不超过该值时不再拆分任务
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private ArgSort() {
+    }
+
+    /**
+     * 把int键与其下标拼成一个long（高32位为键，低32位为非负的下标），按有符号long比较即先比键、再比下标。
+     * 对long数组排序后取出低32位即为结果：键相同时按下标升序，天然稳定，且排序时不需要间接访问键数组。
+     */
+    static int[] sortPacked(int[] keys) {
+        int length = keys.length;
+        long[] packed = packAndSort(keys);
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = (int) packed[i];
+        }
+        return indices;
+    }
+
+    /**
+     * 返回排好序的键与下标拼成的long数组，见{@link #sortPacked(int[])}
+     */
+    static long[] packAndSort(int[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
+        Sort.sort(packed);
+        return packed;
+    }
+
+    /**
+     * 返回按comparator排序后的下标排列
+     *
+     * @param length     下标个数，即[0, length)
+     * @param comparator 下标比较器
+     * @param parallel   是否并行
+     */
+    static int[] sort(int length, Sort.IndexComparator comparator, boolean parallel) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        if (length <= 1) {
+            return indices;
+        }
+        if (parallel && length > PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ParallelMergeSort.sort(ForkJoinPool.commonPool(), indices.clone(), indices, 0, length, PARALLEL_THRESHOLD,
+                    comparator);
+        } else {
+            mergeSort(indices.clone(), indices, 0, length, comparator);
+        }
+        return indices;
+    }
+
+    /**
+     * 将src[beginIndex, endIndex)排序后写入dst，调用前两者在该区间内的内容必须相同，同{@link Sort#mergeSort(int[])}
+     */
+    static void mergeSort(int[] src, int[] dst, int beginIndex, int endIndex,
+            Sort.IndexComparator comparator) {
+        if (endIndex - beginIndex <= INSERTION_THRESHOLD) {
+            insertionSort(dst, beginIndex, endIndex, comparator);
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dst, src, beginIndex, midIndex, comparator);
+        mergeSort(dst, src, midIndex, endIndex, comparator);
+        merge(src, beginIndex, midIndex, midIndex, endIndex, dst, beginIndex, comparator);
+    }
+
+    /**
+     * 对indices[beginIndex, endIndex)进行二分插入排序，插入到第一个比它大的元素之前以保证稳定
+     */
+    private static void insertionSort(int[] indices, int beginIndex, int endIndex,
+            Sort.IndexComparator comparator) {
+        for (int i = beginIndex + 1; i < endIndex; i++) {
+            int index = indices[i];
+            if (comparator.compare(indices[i - 1], index) <= 0) {
+                continue;
+            }
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(index, indices[mid]) < 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            System.arraycopy(indices, low, indices, low + 1, i - low);
+            indices[low] = index;
+        }
+    }
+
+    /**
+     * 合并src[aBegin, aEnd)与src[bBegin, bEnd)到dst[dstBegin...]，相等时优先取a中的
+     */
+    static void merge(int[] src, int aBegin, int aEnd, int bBegin, int bEnd, int[] dst, int dstBegin,
+            Sort.IndexComparator comparator) {
+        int i = aBegin;
+        int j = bBegin;
+        int k = dstBegin;
+        while (i < aEnd && j < bEnd) {
+            if (comparator.compare(src[j], src[i]) < 0) {
+                dst[k++] = src[j++];
+            } else {
+                dst[k++] = src[i++];
+            }
+        }
+        if (i < aEnd) {
+            System.arraycopy(src, i, dst, k, aEnd - i);
+        } else if (j < bEnd) {
+            System.arraycopy(src, j, dst, k, bEnd - j);
+        }
+    }
+}
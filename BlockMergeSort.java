@@ -0,0 +1,456 @@
+import java.util.Comparator;
+
+/**
+ * 块归并排序 - 原地的稳定归并排序，辅助空间只有约√N个元素（外加约√N个块标号），用于堆内存紧张、又需要稳定排序的场合。
+ *
+ * 自底向上：先对每{@link #RUN_LENGTH}个元素做二分插入排序，再逐层两两合并。合并两个相邻的有序段A、B时：
+ * 1. 左段末尾不大于右段开头时两段已经有序，直接跳过；否则先去掉两端已在最终位置的元素；
+ * 2. 较短的一段能放入辅助数组时，把它复制出来，与另一段做普通的归并；
+ * 3. 否则做块选择合并：块长k取辅助数组的长度（约√N），A从右端、B从左端切成长为k的整块，
+ *    A开头与B末尾不足一块的零头留到最后用辅助数组各归并一次。
+ *    a. 块选择：按块首元素合并A、B两个块序列（块首相等时A块在前），得到各块的目标顺序，记在块标号数组中，
+ *       再沿置换的轮换借助辅助数组移动各块，每块只移动一次；
+ *    b. 局部归并：从左到右扫描各块，维护一段"尚未定位"的元素（只来自A或只来自B），遇到同一来源的块时它已在最终位置，
+ *       遇到另一来源的块时把它复制到辅助数组与该块归并，先取完的一方决定剩下的部分及其来源。
+ *       块已按块首排好，剩下的元素都不会小于已输出的元素，所以一次扫描即完成合并。
+ * 每次合并的比较与移动都是O(L)，总时间复杂度O(NlogN)。
+ *
+ * 时间复杂度：O(NlogN) 稳定性：稳定 额外空间：O(√N)
+ */
+final class BlockMergeSort {
+
+    /**
+     * 先用二分插入排序的段长
+     */
+    private static final int RUN_LENGTH = 32;
+
+    private BlockMergeSort() {
+    }
+
+    /**
+     * 辅助数组长度：⌈√N⌉，不小于RUN_LENGTH
+     */
+    static int bufferLength(int length) {
+        return Math.max(RUN_LENGTH, (int) Math.ceil(Math.sqrt(length)));
+    }
+
+    /**
+     * 对nums[beginIndex, endIndex)升序排序
+     */
+    static void sort(int[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex;
+        if (length < 2) {
+            return;
+        }
+        for (int begin = beginIndex; begin < endIndex; begin += Math.min(RUN_LENGTH, endIndex - begin)) {
+            Sort.binaryInsertionSort(nums, begin, Math.min(begin + RUN_LENGTH, endIndex) - 1);
+        }
+        if (length <= RUN_LENGTH) {
+            return;
+        }
+        int[] buffer = new int[Math.min(length, bufferLength(length))];
+        int[] blocks = new int[length / buffer.length + 1];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) (buffer.length + blocks.length) * Integer.BYTES);
+        }
+        for (int width = RUN_LENGTH; width < length; width = width > length >>> 1 ? length : width << 1) {
+            for (int low = beginIndex; endIndex - low > width;) {
+                int mid = low + width;
+                int high = endIndex - mid > width ? mid + width : endIndex;
+                merge(nums, low, mid, high, buffer, blocks);
+                low = high;
+            }
+        }
+    }
+
+    /**
+     * 合并相邻的有序段nums[low, mid)与nums[mid, high)，blocks为块标号数组
+     */
+    private static void merge(int[] nums, int low, int mid, int high, int[] buffer, int[] blocks) {
+        if (low == mid || mid == high || nums[mid - 1] <= nums[mid]) {
+            return;
+        }
+        // 左段中不大于右段开头的元素、右段中不小于左段末尾的元素已在最终位置
+        low = upperBound(nums, low, mid, nums[mid]);
+        high = lowerBound(nums, mid, high, nums[mid - 1]);
+        int leftLength = mid - low;
+        int rightLength = high - mid;
+        if (leftLength <= rightLength && leftLength <= buffer.length) {
+            mergeLow(nums, low, mid, high, buffer);
+        } else if (rightLength <= buffer.length) {
+            mergeHigh(nums, low, mid, high, buffer);
+        } else if (leftLength <= buffer.length) {
+            mergeLow(nums, low, mid, high, buffer);
+        } else {
+            blockMerge(nums, low, mid, high, buffer, blocks);
+        }
+    }
+
+    /**
+     * 块选择合并，要求两段都长于辅助数组，步骤见类注释
+     */
+    private static void blockMerge(int[] nums, int low, int mid, int high, int[] buffer, int[] blocks) {
+        int k = buffer.length;
+        int aStart = low + (mid - low) % k;
+        int bEnd = high - (high - mid) % k;
+        int aBlocks = (mid - aStart) / k;
+        int blockCount = aBlocks + (bEnd - mid) / k;
+
+        // 块从aStart起依次编号，A块为[0, aBlocks)，B块为[aBlocks, blockCount)；blocks[p]为应放到第p个位置的块
+        int i = 0;
+        int j = aBlocks;
+        int p = 0;
+        while (i < aBlocks && j < blockCount) {
+            blocks[p++] = nums[aStart + j * k] < nums[aStart + i * k] ? j++ : i++;
+        }
+        while (i < aBlocks) {
+            blocks[p++] = i++;
+        }
+        while (j < blockCount) {
+            blocks[p++] = j++;
+        }
+
+        // 沿轮换移动各块，已放好的位置把标号取反作为标记
+        for (int start = 0; start < blockCount; start++) {
+            if (blocks[start] < 0) {
+                continue;
+            }
+            if (blocks[start] == start) {
+                blocks[start] = ~start;
+                continue;
+            }
+            System.arraycopy(nums, aStart + start * k, buffer, 0, k);
+            int position = start;
+            while (blocks[position] != start) {
+                int source = blocks[position];
+                System.arraycopy(nums, aStart + source * k, nums, aStart + position * k, k);
+                blocks[position] = ~source;
+                position = source;
+            }
+            System.arraycopy(buffer, 0, nums, aStart + position * k, k);
+            blocks[position] = ~start;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(blockCount);
+            SortMetrics.moved((long) blockCount * k);
+        }
+
+        // 局部归并：nums[restStart, restEnd)为尚未定位的元素，restEnd总是下一块的开头
+        int restStart = aStart;
+        int restEnd = aStart + k;
+        boolean restFromA = ~blocks[0] < aBlocks;
+        for (int q = 1; q < blockCount; q++) {
+            int blockEnd = restEnd + k;
+            boolean blockFromA = ~blocks[q] < aBlocks;
+            if (blockFromA == restFromA) {
+                restStart = restEnd;
+                restEnd = blockEnd;
+                continue;
+            }
+            int restLength = restEnd - restStart;
+            System.arraycopy(nums, restStart, buffer, 0, restLength);
+            int r = 0;
+            int b = restEnd;
+            int out = restStart;
+            // 相等时A中的元素在前
+            if (restFromA) {
+                while (r < restLength && b < blockEnd) {
+                    nums[out++] = nums[b] < buffer[r] ? nums[b++] : buffer[r++];
+                }
+            } else {
+                while (r < restLength && b < blockEnd) {
+                    nums[out++] = nums[b] <= buffer[r] ? nums[b++] : buffer[r++];
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.compared(out - restStart);
+                SortMetrics.moved(restLength + (out - restStart));
+            }
+            if (r < restLength) {
+                // 块先取完，剩下的仍来自原来的一方
+                System.arraycopy(buffer, r, nums, out, restLength - r);
+                restStart = out;
+            } else {
+                restStart = b;
+                restFromA = blockFromA;
+            }
+            restEnd = blockEnd;
+        }
+
+        // 最后归并A开头、B末尾不足一块的零头，二者都短于辅助数组
+        if (aStart > low) {
+            mergeLow(nums, low, aStart, bEnd, buffer);
+        }
+        if (bEnd < high) {
+            mergeHigh(nums, low, bEnd, high, buffer);
+        }
+    }
+
+    /**
+     * 左段复制到辅助数组，从前往后归并
+     */
+    private static void mergeLow(int[] nums, int low, int mid, int high, int[] buffer) {
+        int leftLength = mid - low;
+        System.arraycopy(nums, low, buffer, 0, leftLength);
+        int i = 0;
+        int j = mid;
+        int k = low;
+        while (i < leftLength && j < high) {
+            if (nums[j] < buffer[i]) {
+                nums[k++] = nums[j++];
+            } else {
+                nums[k++] = buffer[i++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(k - low);
+            SortMetrics.moved(leftLength + (k - low));
+        }
+        System.arraycopy(buffer, i, nums, k, leftLength - i);
+    }
+
+    /**
+     * 右段复制到辅助数组，从后往前归并
+     */
+    private static void mergeHigh(int[] nums, int low, int mid, int high, int[] buffer) {
+        int rightLength = high - mid;
+        System.arraycopy(nums, mid, buffer, 0, rightLength);
+        int i = mid - 1;
+        int j = rightLength - 1;
+        int k = high - 1;
+        while (i >= low && j >= 0) {
+            if (buffer[j] < nums[i]) {
+                nums[k--] = nums[i--];
+            } else {
+                nums[k--] = buffer[j--];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(high - 1 - k);
+            SortMetrics.moved(rightLength + (high - 1 - k));
+        }
+        System.arraycopy(buffer, 0, nums, low, j + 1);
+    }
+
+    /**
+     * nums[begin, end)中第一个不小于key的位置
+     */
+    private static int lowerBound(int[] nums, int begin, int end, int key) {
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (nums[mid] < key) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return begin;
+    }
+
+    /**
+     * nums[begin, end)中第一个大于key的位置
+     */
+    private static int upperBound(int[] nums, int begin, int end, int key) {
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (nums[mid] <= key) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return begin;
+    }
+
+    /**
+     * 对items按比较器排序，算法同{@link #sort(int[], int, int)}
+     */
+    static void sort(Object[] items, Comparator<Object> comparator) {
+        int length = items.length;
+        if (length < 2) {
+            return;
+        }
+        for (int begin = 0; begin < length; begin += RUN_LENGTH) {
+            insertionSort(items, begin, Math.min(begin + RUN_LENGTH, length), comparator);
+        }
+        if (length <= RUN_LENGTH) {
+            return;
+        }
+        Object[] buffer = new Object[Math.min(length, bufferLength(length))];
+        int[] blocks = new int[length / buffer.length + 1];
+        for (int width = RUN_LENGTH; width < length; width = width > length >>> 1 ? length : width << 1) {
+            for (int low = 0; length - low > width;) {
+                int mid = low + width;
+                int high = length - mid > width ? mid + width : length;
+                merge(items, low, mid, high, buffer, blocks, comparator);
+                low = high;
+            }
+        }
+    }
+
+    private static void insertionSort(Object[] items, int begin, int end, Comparator<Object> comparator) {
+        for (int i = begin + 1; i < end; i++) {
+            Object item = items[i];
+            int position = upperBound(items, begin, i, item, comparator);
+            System.arraycopy(items, position, items, position + 1, i - position);
+            items[position] = item;
+        }
+    }
+
+    private static void merge(Object[] items, int low, int mid, int high, Object[] buffer, int[] blocks,
+            Comparator<Object> comparator) {
+        if (low == mid || mid == high || comparator.compare(items[mid - 1], items[mid]) <= 0) {
+            return;
+        }
+        low = upperBound(items, low, mid, items[mid], comparator);
+        high = lowerBound(items, mid, high, items[mid - 1], comparator);
+        int leftLength = mid - low;
+        int rightLength = high - mid;
+        if (leftLength <= rightLength && leftLength <= buffer.length) {
+            mergeLow(items, low, mid, high, buffer, comparator);
+        } else if (rightLength <= buffer.length) {
+            mergeHigh(items, low, mid, high, buffer, comparator);
+        } else if (leftLength <= buffer.length) {
+            mergeLow(items, low, mid, high, buffer, comparator);
+        } else {
+            blockMerge(items, low, mid, high, buffer, blocks, comparator);
+        }
+    }
+
+    private static void blockMerge(Object[] items, int low, int mid, int high, Object[] buffer, int[] blocks,
+            Comparator<Object> comparator) {
+        int k = buffer.length;
+        int aStart = low + (mid - low) % k;
+        int bEnd = high - (high - mid) % k;
+        int aBlocks = (mid - aStart) / k;
+        int blockCount = aBlocks + (bEnd - mid) / k;
+
+        int i = 0;
+        int j = aBlocks;
+        int p = 0;
+        while (i < aBlocks && j < blockCount) {
+            blocks[p++] = comparator.compare(items[aStart + j * k], items[aStart + i * k]) < 0 ? j++ : i++;
+        }
+        while (i < aBlocks) {
+            blocks[p++] = i++;
+        }
+        while (j < blockCount) {
+            blocks[p++] = j++;
+        }
+
+        for (int start = 0; start < blockCount; start++) {
+            if (blocks[start] < 0) {
+                continue;
+            }
+            if (blocks[start] == start) {
+                blocks[start] = ~start;
+                continue;
+            }
+            System.arraycopy(items, aStart + start * k, buffer, 0, k);
+            int position = start;
+            while (blocks[position] != start) {
+                int source = blocks[position];
+                System.arraycopy(items, aStart + source * k, items, aStart + position * k, k);
+                blocks[position] = ~source;
+                position = source;
+            }
+            System.arraycopy(buffer, 0, items, aStart + position * k, k);
+            blocks[position] = ~start;
+        }
+
+        int restStart = aStart;
+        int restEnd = aStart + k;
+        boolean restFromA = ~blocks[0] < aBlocks;
+        for (int q = 1; q < blockCount; q++) {
+            int blockEnd = restEnd + k;
+            boolean blockFromA = ~blocks[q] < aBlocks;
+            if (blockFromA == restFromA) {
+                restStart = restEnd;
+                restEnd = blockEnd;
+                continue;
+            }
+            int restLength = restEnd - restStart;
+            System.arraycopy(items, restStart, buffer, 0, restLength);
+            int r = 0;
+            int b = restEnd;
+            int out = restStart;
+            int tie = restFromA ? 0 : 1; // 相等时A中的元素在前
+            while (r < restLength && b < blockEnd) {
+                items[out++] = comparator.compare(items[b], buffer[r]) < tie ? items[b++] : buffer[r++];
+            }
+            if (r < restLength) {
+                System.arraycopy(buffer, r, items, out, restLength - r);
+                restStart = out;
+            } else {
+                restStart = b;
+                restFromA = blockFromA;
+            }
+            restEnd = blockEnd;
+        }
+
+        if (aStart > low) {
+            mergeLow(items, low, aStart, bEnd, buffer, comparator);
+        }
+        if (bEnd < high) {
+            mergeHigh(items, low, bEnd, high, buffer, comparator);
+        }
+    }
+
+    private static void mergeLow(Object[] items, int low, int mid, int high, Object[] buffer,
+            Comparator<Object> comparator) {
+        int leftLength = mid - low;
+        System.arraycopy(items, low, buffer, 0, leftLength);
+        int i = 0;
+        int j = mid;
+        int k = low;
+        while (i < leftLength && j < high) {
+            if (comparator.compare(items[j], buffer[i]) < 0) {
+                items[k++] = items[j++];
+            } else {
+                items[k++] = buffer[i++];
+            }
+        }
+        System.arraycopy(buffer, i, items, k, leftLength - i);
+    }
+
+    private static void mergeHigh(Object[] items, int low, int mid, int high, Object[] buffer,
+            Comparator<Object> comparator) {
+        int rightLength = high - mid;
+        System.arraycopy(items, mid, buffer, 0, rightLength);
+        int i = mid - 1;
+        int j = rightLength - 1;
+        int k = high - 1;
+        while (i >= low && j >= 0) {
+            if (comparator.compare(buffer[j], items[i]) < 0) {
+                items[k--] = items[i--];
+            } else {
+                items[k--] = buffer[j--];
+            }
+        }
+        System.arraycopy(buffer, 0, items, low, j + 1);
+    }
+
+    private static int lowerBound(Object[] items, int begin, int end, Object key, Comparator<Object> comparator) {
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (comparator.compare(items[mid], key) < 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return begin;
+    }
+
+    private static int upperBound(Object[] items, int begin, int end, Object key, Comparator<Object> comparator) {
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (comparator.compare(items[mid], key) <= 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return begin;
+    }
+}
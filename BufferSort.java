@@ -0,0 +1,616 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * 堆外排序 - 直接对IntBuffer、LongBuffer（通常是直接缓冲区或内存映射文件的视图）排序，不拷贝到堆内数组。
+ *
+ * 排序范围为缓冲区的[position, limit)，排序后position与limit不变。快速排序原地进行，不需要辅助空间；
+ * 归并排序与基数排序需要一块等长的辅助缓冲区，用ByteBuffer.allocateDirect分配在堆外，字节序与原缓冲区相同，整个排序过程只占用常数大小的堆内存；
+ * 单个直接缓冲区不能超过2GB，需要更大的辅助缓冲区时抛出IllegalArgumentException，不会退回堆内；这样的缓冲区只能用原地的quickSort排序。
+ * 对FileChannel.map得到的MappedByteBuffer调用asIntBuffer()/asLongBuffer()后排序，即可原地排序文件内容。
+ *
+ * 算法与{@link Sort}中对应的int[]版本相同，元素通过缓冲区的绝对位置get/put读写。
+ */
+public final class BufferSort {
+
+    /**
+     * 区间长度小于该值时改用插入排序
+     */
+    private static final int INSERTION_THRESHOLD = 24;
+
+    /**
+     * 区间长度不小于该值时用九数中值选取基准
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    private static final int RADIX = 256;
+
+    private BufferSort() {
+    }
+
+    /**
+     * 对buffer的[position, limit)做内省排序，见{@link Sort#quickSort(int[], int, int)}。原地排序，不稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     */
+    public static void quickSort(IntBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        IntBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < 2) {
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.quickSort", length);
+        try {
+            introSort(nums, 0, length - 1, 2 * log2(length));
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对buffer的[position, limit)做归并排序，辅助缓冲区分配在堆外。稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     * @throws IllegalArgumentException 辅助缓冲区超过2GB时
+     */
+    public static void mergeSort(IntBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        IntBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < 2) {
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.mergeSort", length);
+        try {
+            IntBuffer scratch = allocateInt(nums);
+            scratch.put(0, nums, 0, length);
+            mergeSort(scratch, nums, 0, length);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对buffer的[position, limit)做LSD基数排序，见{@link Sort#radixSortLSD(int[])}，辅助缓冲区分配在堆外。稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     * @throws IllegalArgumentException 辅助缓冲区超过2GB时
+     */
+    public static void radixSort(IntBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        IntBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < RADIX) {
+            quickSort(nums);
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.radixSort", length);
+        try {
+            int[][] counts = new int[4][RADIX];
+            for (int i = 0; i < length; i++) {
+                int num = nums.get(i);
+                for (int digit = 0; digit < 4; digit++) {
+                    counts[digit][digitOf(num, digit * 8)]++;
+                }
+            }
+
+            IntBuffer src = nums;
+            IntBuffer dst = null;
+            int[] offsets = new int[RADIX];
+            for (int digit = 0; digit < 4; digit++) {
+                int[] count = counts[digit];
+                int shift = digit * 8;
+                if (count[digitOf(src.get(0), shift)] == length) {
+                    continue; // 所有元素在该字节上取值相同
+                }
+                if (dst == null) {
+                    dst = allocateInt(nums);
+                }
+                int offset = 0;
+                for (int i = 0; i < RADIX; i++) {
+                    offsets[i] = offset;
+                    offset += count[i];
+                }
+                for (int i = 0; i < length; i++) {
+                    int num = src.get(i);
+                    dst.put(offsets[digitOf(num, shift)]++, num);
+                }
+                IntBuffer temp = src;
+                src = dst;
+                dst = temp;
+            }
+            if (src != nums) {
+                nums.put(0, src, 0, length);
+            }
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 取num翻转符号位后从shift位开始的一个字节
+     */
+    private static int digitOf(int num, int shift) {
+        return ((num ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * 分配与nums剩余部分等长、字节序相同的堆外缓冲区
+     */
+    private static IntBuffer allocateInt(IntBuffer nums) {
+        int bytes = scratchBytes(nums.remaining(), Integer.BYTES);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(bytes);
+        }
+        return ByteBuffer.allocateDirect(bytes).order(nums.order()).asIntBuffer();
+    }
+
+    /**
+     * 辅助缓冲区的字节数，超过单个直接缓冲区的上限时抛出IllegalArgumentException
+     */
+    private static int scratchBytes(int length, int elementBytes) {
+        long bytes = (long) length * elementBytes;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("scratch buffer of " + bytes
+                    + " bytes exceeds the 2GB direct buffer limit, use quickSort to sort in place");
+        }
+        return (int) bytes;
+    }
+
+    private static void introSort(IntBuffer nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            swap(nums, beginIndex, choosePivot(nums, beginIndex, endIndex));
+            int tagNum = nums.get(beginIndex);
+            int i = beginIndex;
+            int j = endIndex + 1;
+            while (true) {
+                while (nums.get(++i) < tagNum) {
+                    if (i == endIndex) {
+                        break;
+                    }
+                }
+                while (tagNum < nums.get(--j)) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(nums, i, j);
+            }
+            swap(nums, beginIndex, j);
+
+            if (j - beginIndex < endIndex - j) {
+                introSort(nums, beginIndex, j - 1, depthLimit);
+                beginIndex = j + 1;
+            } else {
+                introSort(nums, j + 1, endIndex, depthLimit);
+                endIndex = j - 1;
+            }
+        }
+        insertionSort(nums, beginIndex, endIndex);
+    }
+
+    private static int choosePivot(IntBuffer nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        if (length < NINTHER_THRESHOLD) {
+            return median3(nums, beginIndex, midIndex, endIndex);
+        }
+        int step = length / 8;
+        int low = median3(nums, beginIndex, beginIndex + step, beginIndex + 2 * step);
+        int mid = median3(nums, midIndex - step, midIndex, midIndex + step);
+        int high = median3(nums, endIndex - 2 * step, endIndex - step, endIndex);
+        return median3(nums, low, mid, high);
+    }
+
+    private static int median3(IntBuffer nums, int a, int b, int c) {
+        int x = nums.get(a);
+        int y = nums.get(b);
+        int z = nums.get(c);
+        if (x < y) {
+            return y < z ? b : (x < z ? c : a);
+        } else {
+            return x < z ? a : (y < z ? c : b);
+        }
+    }
+
+    private static void heapSort(IntBuffer nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(nums, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(nums, beginIndex, beginIndex + i);
+            siftDown(nums, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(IntBuffer nums, int offset, int i, int length) {
+        int temp = nums.get(offset + i);
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && nums.get(offset + child) < nums.get(offset + child + 1)) {
+                child++;
+            }
+            int larger = nums.get(offset + child);
+            if (larger <= temp) {
+                break;
+            }
+            nums.put(offset + i, larger);
+            i = child;
+        }
+        nums.put(offset + i, temp);
+    }
+
+    /**
+     * 对nums[beginIndex, endIndex]进行二分插入排序，插入到第一个比它大的元素之前以保证稳定
+     */
+    private static void insertionSort(IntBuffer nums, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            int temp = nums.get(i);
+            if (nums.get(i - 1) <= temp) {
+                continue;
+            }
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (temp < nums.get(mid)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            for (int j = i; j > low; j--) {
+                nums.put(j, nums.get(j - 1));
+            }
+            nums.put(low, temp);
+        }
+    }
+
+    private static void swap(IntBuffer nums, int i, int j) {
+        int temp = nums.get(i);
+        nums.put(i, nums.get(j));
+        nums.put(j, temp);
+    }
+
+    /**
+     * 将src[beginIndex, endIndex)排序后写入dst，调用前两者在该区间内的内容必须相同，同Sort中的归并排序
+     */
+    private static void mergeSort(IntBuffer src, IntBuffer dst, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex <= 2 * INSERTION_THRESHOLD) {
+            insertionSort(dst, beginIndex, endIndex - 1);
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dst, src, beginIndex, midIndex);
+        mergeSort(dst, src, midIndex, endIndex);
+
+        if (src.get(midIndex - 1) <= src.get(midIndex)) {
+            dst.put(beginIndex, src, beginIndex, endIndex - beginIndex); // 两段已经首尾有序
+            return;
+        }
+        int i = beginIndex;
+        int j = midIndex;
+        int k = beginIndex;
+        while (i < midIndex && j < endIndex) {
+            int a = src.get(i);
+            int b = src.get(j);
+            if (b < a) {
+                dst.put(k++, b);
+                j++;
+            } else {
+                dst.put(k++, a);
+                i++;
+            }
+        }
+        if (i < midIndex) {
+            dst.put(k, src, i, midIndex - i);
+        } else if (j < endIndex) {
+            dst.put(k, src, j, endIndex - j);
+        }
+    }
+
+    /**
+     * 对buffer的[position, limit)做内省排序，见{@link Sort#quickSort(int[], int, int)}。原地排序，不稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     */
+    public static void quickSort(LongBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        LongBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < 2) {
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.quickSort", length);
+        try {
+            introSort(nums, 0, length - 1, 2 * log2(length));
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对buffer的[position, limit)做归并排序，辅助缓冲区分配在堆外。稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     * @throws IllegalArgumentException 辅助缓冲区超过2GB时
+     */
+    public static void mergeSort(LongBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        LongBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < 2) {
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.mergeSort", length);
+        try {
+            LongBuffer scratch = allocateLong(nums);
+            scratch.put(0, nums, 0, length);
+            mergeSort(scratch, nums, 0, length);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对buffer的[position, limit)做LSD基数排序，见{@link Sort#radixSortLSD(int[])}，辅助缓冲区分配在堆外。稳定
+     *
+     * @param buffer 要排序的缓冲区，不能是只读的
+     * @throws IllegalArgumentException 辅助缓冲区超过2GB时
+     */
+    public static void radixSort(LongBuffer buffer) {
+        checkWritable(buffer.isReadOnly());
+        LongBuffer nums = buffer.slice();
+        int length = nums.limit();
+        if (length < RADIX) {
+            quickSort(nums);
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("BufferSort.radixSort", length);
+        try {
+            int[][] counts = new int[8][RADIX];
+            for (int i = 0; i < length; i++) {
+                long num = nums.get(i);
+                for (int digit = 0; digit < 8; digit++) {
+                    counts[digit][digitOf(num, digit * 8)]++;
+                }
+            }
+
+            LongBuffer src = nums;
+            LongBuffer dst = null;
+            int[] offsets = new int[RADIX];
+            for (int digit = 0; digit < 8; digit++) {
+                int[] count = counts[digit];
+                int shift = digit * 8;
+                if (count[digitOf(src.get(0), shift)] == length) {
+                    continue; // 所有元素在该字节上取值相同
+                }
+                if (dst == null) {
+                    dst = allocateLong(nums);
+                }
+                int offset = 0;
+                for (int i = 0; i < RADIX; i++) {
+                    offsets[i] = offset;
+                    offset += count[i];
+                }
+                for (int i = 0; i < length; i++) {
+                    long num = src.get(i);
+                    dst.put(offsets[digitOf(num, shift)]++, num);
+                }
+                LongBuffer temp = src;
+                src = dst;
+                dst = temp;
+            }
+            if (src != nums) {
+                nums.put(0, src, 0, length);
+            }
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 取num翻转符号位后从shift位开始的一个字节
+     */
+    private static int digitOf(long num, int shift) {
+        return (int) ((num ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * 分配与nums剩余部分等长、字节序相同的堆外缓冲区
+     */
+    private static LongBuffer allocateLong(LongBuffer nums) {
+        int bytes = scratchBytes(nums.remaining(), Long.BYTES);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(bytes);
+        }
+        return ByteBuffer.allocateDirect(bytes).order(nums.order()).asLongBuffer();
+    }
+
+    private static void introSort(LongBuffer nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            swap(nums, beginIndex, choosePivot(nums, beginIndex, endIndex));
+            long tagNum = nums.get(beginIndex);
+            int i = beginIndex;
+            int j = endIndex + 1;
+            while (true) {
+                while (nums.get(++i) < tagNum) {
+                    if (i == endIndex) {
+                        break;
+                    }
+                }
+                while (tagNum < nums.get(--j)) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(nums, i, j);
+            }
+            swap(nums, beginIndex, j);
+
+            if (j - beginIndex < endIndex - j) {
+                introSort(nums, beginIndex, j - 1, depthLimit);
+                beginIndex = j + 1;
+            } else {
+                introSort(nums, j + 1, endIndex, depthLimit);
+                endIndex = j - 1;
+            }
+        }
+        insertionSort(nums, beginIndex, endIndex);
+    }
+
+    private static int choosePivot(LongBuffer nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        if (length < NINTHER_THRESHOLD) {
+            return median3(nums, beginIndex, midIndex, endIndex);
+        }
+        int step = length / 8;
+        int low = median3(nums, beginIndex, beginIndex + step, beginIndex + 2 * step);
+        int mid = median3(nums, midIndex - step, midIndex, midIndex + step);
+        int high = median3(nums, endIndex - 2 * step, endIndex - step, endIndex);
+        return median3(nums, low, mid, high);
+    }
+
+    private static int median3(LongBuffer nums, int a, int b, int c) {
+        long x = nums.get(a);
+        long y = nums.get(b);
+        long z = nums.get(c);
+        if (x < y) {
+            return y < z ? b : (x < z ? c : a);
+        } else {
+            return x < z ? a : (y < z ? c : b);
+        }
+    }
+
+    private static void heapSort(LongBuffer nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(nums, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(nums, beginIndex, beginIndex + i);
+            siftDown(nums, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(LongBuffer nums, int offset, int i, int length) {
+        long temp = nums.get(offset + i);
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && nums.get(offset + child) < nums.get(offset + child + 1)) {
+                child++;
+            }
+            long larger = nums.get(offset + child);
+            if (larger <= temp) {
+                break;
+            }
+            nums.put(offset + i, larger);
+            i = child;
+        }
+        nums.put(offset + i, temp);
+    }
+
+    /**
+     * 对nums[beginIndex, endIndex]进行二分插入排序，插入到第一个比它大的元素之前以保证稳定
+     */
+    private static void insertionSort(LongBuffer nums, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            long temp = nums.get(i);
+            if (nums.get(i - 1) <= temp) {
+                continue;
+            }
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (temp < nums.get(mid)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            for (int j = i; j > low; j--) {
+                nums.put(j, nums.get(j - 1));
+            }
+            nums.put(low, temp);
+        }
+    }
+
+    private static void swap(LongBuffer nums, int i, int j) {
+        long temp = nums.get(i);
+        nums.put(i, nums.get(j));
+        nums.put(j, temp);
+    }
+
+    /**
+     * 将src[beginIndex, endIndex)排序后写入dst，调用前两者在该区间内的内容必须相同，同Sort中的归并排序
+     */
+    private static void mergeSort(LongBuffer src, LongBuffer dst, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex <= 2 * INSERTION_THRESHOLD) {
+            insertionSort(dst, beginIndex, endIndex - 1);
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dst, src, beginIndex, midIndex);
+        mergeSort(dst, src, midIndex, endIndex);
+
+        if (src.get(midIndex - 1) <= src.get(midIndex)) {
+            dst.put(beginIndex, src, beginIndex, endIndex - beginIndex); // 两段已经首尾有序
+            return;
+        }
+        int i = beginIndex;
+        int j = midIndex;
+        int k = beginIndex;
+        while (i < midIndex && j < endIndex) {
+            long a = src.get(i);
+            long b = src.get(j);
+            if (b < a) {
+                dst.put(k++, b);
+                j++;
+            } else {
+                dst.put(k++, a);
+                i++;
+            }
+        }
+        if (i < midIndex) {
+            dst.put(k, src, i, midIndex - i);
+        } else if (j < endIndex) {
+            dst.put(k, src, j, endIndex - j);
+        }
+    }
+
+    private static void checkWritable(boolean readOnly) {
+        if (readOnly) {
+            throw new ReadOnlyBufferException();
+        }
+    }
+
+    private static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+}
@@ -0,0 +1,423 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 外部归并排序 - 对大于堆内存的二进制int/long文件排序。
+ *
+ * 第一阶段按堆内存预算把输入文件分块，通过内存映射（MappedByteBuffer）读入数组，
+ * 用{@link Sort#sort(int[])}或{@link Sort#sort(long[])}排序后写成有序的临时文件（顺串）；
+ * 第二阶段对顺串做多路归并，每个顺串和输出各有两块直接缓冲区，一块被消费时另一块在后台线程中顺序读写（双缓冲）。
+ * 顺串过多、缓冲区不足时分多趟归并。
+ *
+ * 堆内存预算限制的是分块数组的大小以及归并时读写缓冲区的总大小。
+ */
+public class ExternalSort {
+
+    /**
+     * 归并时每块读写缓冲区的最小、最大字节数
+     */
+    private static final int MIN_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_BUFFER_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * 每次内存映射的最大字节数
+     */
+    private static final int MAX_MAP_BYTES = 1 << 30;
+
+    private final long heapBudget;
+    private final Path tempDirectory;
+    private final ByteOrder order;
+
+    /**
+     * @param heapBudget 堆内存预算（字节），临时文件放在java.io.tmpdir下，字节序为大端
+     */
+    public ExternalSort(long heapBudget) {
+        this(heapBudget, Paths.get(System.getProperty("java.io.tmpdir")), ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @param heapBudget    堆内存预算（字节）
+     * @param tempDirectory 存放顺串临时文件的目录
+     * @param order         输入输出文件的字节序
+     */
+    public ExternalSort(long heapBudget, Path tempDirectory, ByteOrder order) {
+        if (heapBudget < 4L * MIN_BUFFER_BYTES) {
+            throw new IllegalArgumentException("heapBudget too small: " + heapBudget);
+        }
+        this.heapBudget = heapBudget;
+        this.tempDirectory = tempDirectory;
+        this.order = order;
+    }
+
+    /**
+     * 对由int组成的二进制文件升序排序
+     *
+     * @param input  输入文件，长度需为4的倍数
+     * @param output 输出文件，已存在时被覆盖
+     */
+    public void sortInts(Path input, Path output) throws IOException {
+        sort(input, output, Integer.BYTES);
+    }
+
+    /**
+     * 对由long组成的二进制文件升序排序
+     *
+     * @param input  输入文件，长度需为8的倍数
+     * @param output 输出文件，已存在时被覆盖
+     */
+    public void sortLongs(Path input, Path output) throws IOException {
+        sort(input, output, Long.BYTES);
+    }
+
+    private void sort(Path input, Path output, int elementSize) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Path> temporaries = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "external-sort-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            createRuns(input, output, elementSize, runs, temporaries);
+            if (runs.isEmpty()) {
+                return; // 单个分块已直接写入输出文件
+            }
+
+            // 每个输入顺串与输出各需两块缓冲区
+            int maxFanIn = (int) Math.max(2, Math.min(Integer.MAX_VALUE, heapBudget / (2L * MIN_BUFFER_BYTES) - 1));
+            while (runs.size() > 1) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += maxFanIn) {
+                    List<Path> group = runs.subList(i, Math.min(runs.size(), i + maxFanIn));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    Path target = runs.size() <= maxFanIn ? output : createTempFile(temporaries);
+                    merge(group, target, elementSize, executor);
+                    for (Path run : group) {
+                        Files.deleteIfExists(run);
+                    }
+                    merged.add(target);
+                }
+                runs = merged;
+            }
+            if (!runs.get(0).equals(output)) {
+                Files.move(runs.get(0), output, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (Path temporary : temporaries) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * 把输入文件按预算分块排序。只有一个分块时直接写入输出文件，否则每块写成一个临时顺串加入runs
+     */
+    private void createRuns(Path input, Path output, int elementSize, List<Path> runs, List<Path> temporaries)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize % elementSize != 0) {
+                throw new IllegalArgumentException(input + " size " + fileSize + " is not a multiple of " + elementSize);
+            }
+            long totalElements = fileSize / elementSize;
+            int chunkElements = (int) Math.min(Integer.MAX_VALUE - 8, heapBudget / elementSize);
+            // 第一块最长，分块数组按它分配一次，之后各块（包括较短的最后一块）复用同一个数组，堆内存不超过预算
+            int firstCount = (int) Math.min(chunkElements, totalElements);
+            int[] intChunk = elementSize == Integer.BYTES ? new int[firstCount] : null;
+            long[] longChunk = elementSize == Long.BYTES ? new long[firstCount] : null;
+            ByteBuffer writeBuffer = ByteBuffer.allocateDirect(MAX_BUFFER_BYTES).order(order);
+
+            long position = 0;
+            do {
+                int count = (int) Math.min(chunkElements, totalElements - position / elementSize);
+
+                // 分段映射读入分块数组
+                int filled = 0;
+                while (filled < count) {
+                    int mapElements = Math.min(count - filled, MAX_MAP_BYTES / elementSize);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                            position + (long) filled * elementSize, (long) mapElements * elementSize);
+                    mapped.order(order);
+                    if (elementSize == Integer.BYTES) {
+                        mapped.asIntBuffer().get(intChunk, filled, mapElements);
+                    } else {
+                        mapped.asLongBuffer().get(longChunk, filled, mapElements);
+                    }
+                    filled += mapElements;
+                }
+                position += (long) count * elementSize;
+
+                Path target;
+                if (runs.isEmpty() && position == fileSize) {
+                    target = output;
+                } else {
+                    target = createTempFile(temporaries);
+                    runs.add(target);
+                }
+                if (elementSize == Integer.BYTES) {
+                    Sort.sort(intChunk, 0, count);
+                    writeChunk(target, intChunk, null, count, writeBuffer);
+                } else {
+                    Sort.sort(longChunk, 0, count);
+                    writeChunk(target, null, longChunk, count, writeBuffer);
+                }
+            } while (position < fileSize);
+        }
+    }
+
+    /**
+     * 把排好序的分块的前count个元素写入文件，intChunk与longChunk二者只有一个非空。
+     * buffer为各分块共用的直接缓冲区，避免每块分配一个只能等GC回收的直接缓冲区
+     */
+    private static void writeChunk(Path target, int[] intChunk, long[] longChunk, int count, ByteBuffer buffer)
+            throws IOException {
+        int elementSize = intChunk != null ? Integer.BYTES : Long.BYTES;
+        int bufferElements = buffer.capacity() / elementSize;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int written = 0; written < count; written += bufferElements) {
+                int length = Math.min(bufferElements, count - written);
+                buffer.clear();
+                if (intChunk != null) {
+                    buffer.asIntBuffer().put(intChunk, written, length);
+                } else {
+                    buffer.asLongBuffer().put(longChunk, written, length);
+                }
+                buffer.limit(length * elementSize);
+                writeFully(channel, buffer);
+            }
+        }
+    }
+
+    /**
+     * 多路归并若干顺串到target，用最小堆选出各顺串当前元素中的最小者
+     */
+    private void merge(List<Path> runs, Path target, int elementSize, ExecutorService executor) throws IOException {
+        int fanIn = runs.size();
+        int bufferBytes = (int) Math.min(MAX_BUFFER_BYTES,
+                Math.max(MIN_BUFFER_BYTES, heapBudget / (2L * (fanIn + 1))));
+        bufferBytes -= bufferBytes % Long.BYTES;
+
+        RunReader[] readers = new RunReader[fanIn];
+        try (RunWriter writer = new RunWriter(target, bufferBytes, elementSize, executor)) {
+            int[] heap = new int[fanIn];
+            int heapSize = 0;
+            for (int i = 0; i < fanIn; i++) {
+                readers[i] = new RunReader(runs.get(i), bufferBytes, elementSize, executor);
+                if (readers[i].advance()) {
+                    heap[heapSize++] = i;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i, readers);
+            }
+
+            while (heapSize > 0) {
+                RunReader reader = readers[heap[0]];
+                writer.write(reader.current);
+                if (!reader.advance()) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, 0, readers);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 以各顺串当前元素为键的小顶堆下沉
+     */
+    private static void siftDown(int[] heap, int heapSize, int i, RunReader[] readers) {
+        int top = heap[i];
+        long key = readers[top].current;
+        int child;
+        while ((child = 2 * i + 1) < heapSize) {
+            if (child + 1 < heapSize && readers[heap[child + 1]].current < readers[heap[child]].current) {
+                child++;
+            }
+            if (key <= readers[heap[child]].current) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = top;
+    }
+
+    /**
+     * 创建顺串临时文件并登记到temporaries中，排序结束时统一删除
+     */
+    private Path createTempFile(List<Path> temporaries) throws IOException {
+        Path temporary = Files.createTempFile(tempDirectory, "sort-run-", ".bin");
+        temporaries.add(temporary);
+        return temporary;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 等待后台I/O完成，把其中的IOException原样抛出
+     */
+    private static <V> V await(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for I/O", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 顺串读取器：消费front的同时在后台把后续数据读入back
+     */
+    private final class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final int elementSize;
+        private final ExecutorService executor;
+        private ByteBuffer front;
+        private ByteBuffer back;
+        private Future<ByteBuffer> pending;
+
+        /**
+         * 最近一次{@link #advance()}读出的元素
+         */
+        long current;
+
+        RunReader(Path run, int bufferBytes, int elementSize, ExecutorService executor) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.elementSize = elementSize;
+            this.executor = executor;
+            this.front = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            this.back = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            front.limit(0);
+            ByteBuffer target = back;
+            pending = executor.submit(() -> fill(target));
+        }
+
+        /**
+         * 读出下一个元素到current
+         *
+         * @return 顺串已读完时返回false
+         */
+        boolean advance() throws IOException {
+            if (!front.hasRemaining()) {
+                ByteBuffer filled = await(pending);
+                if (!filled.hasRemaining()) {
+                    return false;
+                }
+                ByteBuffer consumed = front;
+                back = consumed;
+                front = filled;
+                pending = executor.submit(() -> fill(consumed));
+            }
+            current = elementSize == Integer.BYTES ? front.getInt() : front.getLong();
+            return true;
+        }
+
+        private ByteBuffer fill(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            pending.cancel(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * 顺串写入器：填充front的同时在后台把已满的back写入文件
+     */
+    private final class RunWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final int elementSize;
+        private final ExecutorService executor;
+        private ByteBuffer front;
+        private ByteBuffer back;
+        private Future<?> pending;
+
+        RunWriter(Path target, int bufferBytes, int elementSize, ExecutorService executor) throws IOException {
+            this.channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.elementSize = elementSize;
+            this.executor = executor;
+            this.front = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            this.back = ByteBuffer.allocateDirect(bufferBytes).order(order);
+        }
+
+        void write(long value) throws IOException {
+            if (front.remaining() < elementSize) {
+                flush();
+            }
+            if (elementSize == Integer.BYTES) {
+                front.putInt((int) value);
+            } else {
+                front.putLong(value);
+            }
+        }
+
+        /**
+         * 等待上一次写入完成，把front交给后台写入并换用另一块缓冲区
+         */
+        private void flush() throws IOException {
+            if (pending != null) {
+                await(pending);
+            }
+            ByteBuffer full = front;
+            full.flip();
+            front = back;
+            front.clear();
+            back = full;
+            pending = executor.submit(() -> {
+                writeFully(channel, full);
+                return null;
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                await(pending);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Java 语言: 外部归并排序检测
+ *
+ * 生成随机int/long文件，用远小于文件大小的内存预算排序（产生多个顺串并分多趟归并），与Arrays.sort的结果比较。
+ */
+public class ExternalSortTest {
+
+    private static final int COUNT = 3_000_000;
+    private static final long HEAP_BUDGET = 512 * 1024; // 远小于文件大小，分块数超过单趟归并路数
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("external-sort-test");
+        Random random = new Random(20131107);
+        ExternalSort externalSort = new ExternalSort(HEAP_BUDGET, directory, ByteOrder.BIG_ENDIAN);
+
+        int[] ints = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            ints[i] = random.nextInt();
+        }
+        Path intInput = directory.resolve("ints.bin");
+        Path intOutput = directory.resolve("ints.sorted");
+        ByteBuffer buffer = ByteBuffer.allocate(COUNT * Integer.BYTES);
+        buffer.asIntBuffer().put(ints);
+        Files.write(intInput, buffer.array());
+        externalSort.sortInts(intInput, intOutput);
+
+        int[] actualInts = new int[COUNT];
+        ByteBuffer.wrap(Files.readAllBytes(intOutput)).asIntBuffer().get(actualInts);
+        Arrays.sort(ints);
+        System.out.printf("== sortInts: %s\n", Arrays.equals(ints, actualInts) ? "通过" : "失败");
+
+        long[] longs = new long[COUNT / 2];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = random.nextLong();
+        }
+        Path longInput = directory.resolve("longs.bin");
+        Path longOutput = directory.resolve("longs.sorted");
+        buffer = ByteBuffer.allocate(longs.length * Long.BYTES);
+        buffer.asLongBuffer().put(longs);
+        Files.write(longInput, buffer.array());
+        externalSort.sortLongs(longInput, longOutput);
+
+        long[] actualLongs = new long[longs.length];
+        ByteBuffer.wrap(Files.readAllBytes(longOutput)).asLongBuffer().get(actualLongs);
+        Arrays.sort(longs);
+        System.out.printf("== sortLongs: %s\n", Arrays.equals(longs, actualLongs) ? "通过" : "失败");
+
+        try (Stream<Path> files = Files.list(directory)) {
+            long leftover = files.filter(p -> p.getFileName().toString().startsWith("sort-run-")).count();
+            System.out.printf("== 残留临时文件: %d\n", leftover);
+        }
+
+        Files.delete(intInput);
+        Files.delete(intOutput);
+        Files.delete(longInput);
+        Files.delete(longOutput);
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,549 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 增量排序 - 数据按批到达时逐批加入，不必等全部输入到齐再排序。
+ *
+ * 加入的数据先放入固定大小的缓冲区，缓冲区满时用{@link Sort#sort(int[], int, int)}排序并写成磁盘上的顺串，内存占用只有缓冲区本身。
+ * 顺串按层组织：同一层积累到{@link #FAN_IN}个顺串时，交给后台线程用败者树合并成上一层的一个顺串，顺串个数随数据量对数增长。
+ * {@link #iterator()}随时可调用，返回截至此刻所有数据的有序迭代器：缓冲区中尚未写出的数据排序后与现有顺串一起经败者树逐个归并输出，
+ * 调用方可以在输入结束之前就开始消费；之后加入的数据不影响已返回的迭代器。
+ *
+ * 顺串文件带引用计数，被迭代器引用的顺串即使已被后台合并也会保留到迭代器读完或关闭时才删除。
+ * add与iterator不是线程安全的，需由同一线程调用；返回的迭代器可以交给其他线程消费。
+ */
+public class IncrementalSort implements AutoCloseable {
+
+    /**
+     * 同一层顺串达到该数量时在后台合并
+     */
+    private static final int FAN_IN = 8;
+
+    /**
+     * 读写顺串文件的缓冲区字节数
+     */
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * 读完的输入在败者树中的键，大于任何int
+     */
+    private static final long EXHAUSTED = Long.MAX_VALUE;
+
+    private final int[] buffer;
+    private int buffered = 0;
+    private long size = 0;
+    private final Path tempDirectory;
+    private final ExecutorService merger;
+
+    private final Object lock = new Object();
+    /**
+     * 当前可见的全部顺串，正在被合并的顺串在合并完成前仍在其中
+     */
+    private final List<Run> live = new ArrayList<>();
+    /**
+     * 各层等待合并的顺串
+     */
+    private final List<List<Run>> levels = new ArrayList<>();
+    /**
+     * 后台合并的第一个异常与是否已关闭，在lock内写入；add每个元素都要检查，因此为volatile，读取时不加锁
+     */
+    private volatile IOException failure;
+    private volatile boolean closed = false;
+
+    /**
+     * @param bufferSize    内存缓冲区能容纳的int个数，即每个初始顺串的长度
+     * @param tempDirectory 存放顺串临时文件的目录
+     */
+    public IncrementalSort(int bufferSize, Path tempDirectory) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.buffer = new int[bufferSize];
+        this.tempDirectory = tempDirectory;
+        this.merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "incremental-sort-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 加入一个元素
+     */
+    public void add(int num) throws IOException {
+        ensureOpen();
+        buffer[buffered++] = num;
+        size++;
+        if (buffered == buffer.length) {
+            spill();
+        }
+    }
+
+    /**
+     * 加入nums[fromIndex, toIndex)中的所有元素
+     */
+    public void add(int[] nums, int fromIndex, int toIndex) throws IOException {
+        ensureOpen();
+        while (fromIndex < toIndex) {
+            int length = Math.min(toIndex - fromIndex, buffer.length - buffered);
+            System.arraycopy(nums, fromIndex, buffer, buffered, length);
+            buffered += length;
+            fromIndex += length;
+            size += length;
+            if (buffered == buffer.length) {
+                spill();
+            }
+        }
+    }
+
+    /**
+     * 已加入的元素个数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 返回截至此刻所有已加入元素的升序迭代器，元素在消费时才逐个归并得出。
+     * 迭代器读完时自动释放其引用的顺串，提前放弃时需调用{@link MergedIterator#close()}。
+     */
+    public MergedIterator iterator() throws IOException {
+        ensureOpen();
+        int[] tail = Arrays.copyOf(buffer, buffered);
+        Sort.sort(tail);
+
+        List<Run> runs;
+        synchronized (lock) {
+            runs = new ArrayList<>(live);
+            for (Run run : runs) {
+                run.retain();
+            }
+        }
+        Source[] sources = new Source[runs.size() + 1];
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                sources[i] = new FileSource(runs.get(i).path);
+            }
+        } catch (IOException e) {
+            closeAll(sources);
+            releaseAll(runs);
+            throw e;
+        }
+        sources[runs.size()] = new ArraySource(tail);
+        return new MergedIterator(sources, runs);
+    }
+
+    /**
+     * 等待后台合并结束并删除所有顺串文件，仍未读完的迭代器所引用的顺串在迭代器关闭时删除
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        merger.shutdown();
+        try {
+            while (!merger.awaitTermination(1, TimeUnit.SECONDS)) {
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for background merges", e);
+        }
+        List<Run> runs;
+        synchronized (lock) {
+            runs = new ArrayList<>(live);
+            live.clear();
+            levels.clear();
+        }
+        releaseAll(runs);
+    }
+
+    /**
+     * 已关闭时抛出IllegalStateException，后台合并失败时把其IOException抛给调用方
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+        IOException failure = this.failure;
+        if (failure != null) {
+            throw new IOException("background merge failed", failure);
+        }
+    }
+
+    /**
+     * 把缓冲区排序后写成第0层的顺串
+     */
+    private void spill() throws IOException {
+        Sort.sort(buffer, 0, buffered);
+        Path path = Files.createTempFile(tempDirectory, "sort-run-", ".bin");
+        try (RunOutput output = new RunOutput(path)) {
+            output.write(buffer, buffered);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        buffered = 0;
+        synchronized (lock) {
+            addRun(new Run(path), 0);
+        }
+    }
+
+    /**
+     * 登记一个新顺串，该层积满时提交后台合并，调用时需持有lock
+     */
+    private void addRun(Run run, int level) {
+        live.add(run);
+        while (levels.size() <= level) {
+            levels.add(new ArrayList<>());
+        }
+        List<Run> runs = levels.get(level);
+        runs.add(run);
+        if (runs.size() >= FAN_IN && !closed) {
+            List<Run> group = new ArrayList<>(runs);
+            runs.clear();
+            merger.execute(() -> merge(group, level + 1));
+        }
+    }
+
+    /**
+     * 后台线程中把group合并为第level层的一个顺串，合并失败时保留原顺串并记录异常。
+     * 合并结果登记后即可被迭代器引用，此后释放原顺串失败只记录异常，不能再删除合并结果
+     */
+    private void merge(List<Run> group, int level) {
+        Path path = null;
+        Source[] sources = new Source[group.size()];
+        try {
+            path = Files.createTempFile(tempDirectory, "sort-run-", ".bin");
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = new FileSource(group.get(i).path);
+            }
+            try (RunOutput output = new RunOutput(path)) {
+                LoserTree tree = new LoserTree(sources);
+                for (long num; (num = tree.peek()) != EXHAUSTED; tree.advance()) {
+                    output.write((int) num);
+                }
+            }
+            closeAll(sources);
+            synchronized (lock) {
+                live.removeAll(group);
+                addRun(new Run(path), level);
+            }
+        } catch (IOException e) {
+            closeAll(sources);
+            recordFailure(e);
+            if (path != null) {
+                path.toFile().delete();
+            }
+            return;
+        }
+        try {
+            releaseAll(group);
+        } catch (IOException e) {
+            recordFailure(e);
+        }
+    }
+
+    /**
+     * 记录后台合并的第一个异常，由之后的{@link #ensureOpen()}抛给调用方
+     */
+    private void recordFailure(IOException e) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private static void closeAll(Source[] sources) {
+        for (Source source : sources) {
+            if (source != null) {
+                source.close();
+            }
+        }
+    }
+
+    private static void releaseAll(List<Run> runs) throws IOException {
+        IOException exception = null;
+        for (Run run : runs) {
+            try {
+                run.release();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 归并迭代器：每次取出败者树的冠军，读完时释放顺串
+     */
+    public static final class MergedIterator implements PrimitiveIterator.OfInt, AutoCloseable {
+        private final Source[] sources;
+        private final List<Run> runs;
+        private final LoserTree tree;
+        private boolean closed = false;
+
+        private MergedIterator(Source[] sources, List<Run> runs) throws IOException {
+            this.sources = sources;
+            this.runs = runs;
+            try {
+                this.tree = new LoserTree(sources);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !closed && tree.peek() != EXHAUSTED;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int num = (int) tree.peek();
+            try {
+                tree.advance();
+                if (tree.peek() == EXHAUSTED) {
+                    close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return num;
+        }
+
+        /**
+         * 提前结束迭代，释放引用的顺串
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeAll(sources);
+            releaseAll(runs);
+        }
+    }
+
+    /**
+     * 败者树 - 内部结点记录在该处比赛中落败的输入，tree[0]记录冠军。
+     * 冠军取出后只需沿其叶子到根的路径重赛，每层比较一次，而二叉堆的下沉每层需要比较两次。已读完的输入以{@link #EXHAUSTED}参赛。
+     */
+    private static final class LoserTree {
+        private final Source[] sources;
+        private final int[] tree;
+
+        LoserTree(Source[] sources) throws IOException {
+            this.sources = sources;
+            this.tree = new int[sources.length];
+            for (Source source : sources) {
+                source.advance();
+            }
+            tree[0] = sources.length == 1 ? 0 : build(1);
+        }
+
+        /**
+         * 自底向上决出以node为根的子树的冠军，败者留在node。叶子node对应输入node - k
+         */
+        private int build(int node) {
+            int k = sources.length;
+            if (node >= k) {
+                return node - k;
+            }
+            int left = build(2 * node);
+            int right = build(2 * node + 1);
+            if (sources[left].current <= sources[right].current) {
+                tree[node] = right;
+                return left;
+            }
+            tree[node] = left;
+            return right;
+        }
+
+        /**
+         * 当前最小的元素，全部读完时为{@link #EXHAUSTED}
+         */
+        long peek() {
+            return sources[tree[0]].current;
+        }
+
+        /**
+         * 冠军所在的输入前进一个元素，并沿路径重赛
+         */
+        void advance() throws IOException {
+            int winner = tree[0];
+            sources[winner].advance();
+            long key = sources[winner].current;
+            for (int node = (winner + sources.length) >>> 1; node > 0; node >>>= 1) {
+                int loser = tree[node];
+                if (sources[loser].current < key) {
+                    tree[node] = winner;
+                    winner = loser;
+                    key = sources[loser].current;
+                }
+            }
+            tree[0] = winner;
+        }
+    }
+
+    /**
+     * 有序输入，current为当前元素，读完后为{@link #EXHAUSTED}
+     */
+    private abstract static class Source {
+        long current;
+
+        abstract void advance() throws IOException;
+
+        void close() {
+        }
+    }
+
+    private static final class ArraySource extends Source {
+        private final int[] nums;
+        private int index = 0;
+
+        ArraySource(int[] nums) {
+            this.nums = nums;
+        }
+
+        @Override
+        void advance() {
+            current = index < nums.length ? nums[index++] : EXHAUSTED;
+        }
+    }
+
+    private static final class FileSource extends Source {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+
+        FileSource(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        @Override
+        void advance() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                }
+                buffer.flip();
+                if (!buffer.hasRemaining()) {
+                    current = EXHAUSTED;
+                    return;
+                }
+            }
+            current = buffer.getInt();
+        }
+
+        @Override
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 只读通道关闭失败不影响结果
+            }
+        }
+    }
+
+    /**
+     * 顺串写入，文件按本机字节序存放，只在本进程内读取
+     */
+    private static final class RunOutput implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+
+        RunOutput(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int num) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putInt(num);
+        }
+
+        void write(int[] nums, int length) throws IOException {
+            for (int written = 0; written < length;) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                IntBuffer ints = buffer.asIntBuffer();
+                int count = Math.min(ints.remaining(), length - written);
+                ints.put(nums, written, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                written += count;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 顺串文件，引用计数归零时删除
+     */
+    private static final class Run {
+        final Path path;
+        private int references = 1;
+
+        Run(Path path) {
+            this.path = path;
+        }
+
+        synchronized void retain() {
+            references++;
+        }
+
+        void release() throws IOException {
+            boolean delete;
+            synchronized (this) {
+                delete = --references == 0;
+            }
+            if (delete) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Java 语言: 增量排序检测
+ *
+ * 用很小的缓冲区分批加入随机数据（产生多层顺串与后台合并），在输入中途和结束后分别取迭代器，与Arrays.sort的结果比较。
+ * 另外让后台合并在释放原顺串时失败，检查合并结果不被删除。
+ */
+public class IncrementalSortTest {
+
+    private static final int COUNT = 1_000_000;
+    private static final int BUFFER_SIZE = 5_000;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("incremental-sort-test");
+        Random random = new Random(20131107);
+        int[] nums = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            nums[i] = random.nextInt();
+        }
+
+        int failures = 0;
+        IncrementalSort.MergedIterator early;
+        try (IncrementalSort sorter = new IncrementalSort(BUFFER_SIZE, directory)) {
+            int half = COUNT / 2 + 1234;
+            for (int from = 0; from < half;) {
+                int to = Math.min(half, from + 1 + random.nextInt(3 * BUFFER_SIZE));
+                sorter.add(nums, from, to);
+                from = to;
+            }
+            // 输入中途取得的迭代器只包含此前的数据，先读一部分，其余在后续加入数据后再读
+            early = sorter.iterator();
+            int[] expected = Arrays.copyOf(nums, half);
+            Arrays.sort(expected);
+            int[] actual = new int[half];
+            int read = 0;
+            for (; read < half / 2; read++) {
+                actual[read] = early.nextInt();
+            }
+
+            for (int i = half; i < COUNT; i++) {
+                sorter.add(nums[i]);
+            }
+            while (early.hasNext()) {
+                actual[read++] = early.nextInt();
+            }
+            failures += report("中途迭代器", read == half && Arrays.equals(expected, actual));
+
+            expected = nums.clone();
+            Arrays.sort(expected);
+            actual = new int[COUNT];
+            read = 0;
+            for (IncrementalSort.MergedIterator iterator = sorter.iterator(); iterator.hasNext();) {
+                actual[read++] = iterator.nextInt();
+            }
+            failures += report("最终迭代器", read == COUNT && Arrays.equals(expected, actual));
+            failures += report("size", sorter.size() == COUNT);
+
+            // 未读完的迭代器在排序器关闭后仍可继续读
+            early = sorter.iterator();
+            early.nextInt();
+        }
+        int read = 1;
+        while (early.hasNext()) {
+            early.nextInt();
+            read++;
+        }
+        failures += report("关闭后读完", read == COUNT);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            failures += report("删除临时文件", files.count() == 0);
+        }
+        Files.delete(directory);
+
+        failures += checkReleaseFailure(random);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 把一个第0层顺串换成命名管道，后台合并读到它时会阻塞；趁此把它替换为非空目录，合并结束释放它时删除失败。
+     * 此时合并结果已登记，应当保留并包含全部数据。依赖mkfifo命令
+     */
+    private static int checkReleaseFailure(Random random) throws IOException {
+        final int bufferSize = 1000;
+        final int runCount = 8;
+        Path directory = Files.createTempDirectory("incremental-sort-test");
+        int[] nums = new int[bufferSize * runCount];
+        for (int i = 0; i < nums.length; i++) {
+            nums[i] = random.nextInt();
+        }
+        int failures = 0;
+        try (IncrementalSort sorter = new IncrementalSort(bufferSize, directory)) {
+            sorter.add(nums, 0, bufferSize * (runCount - 1));
+            Path victim;
+            try (Stream<Path> files = Files.list(directory)) {
+                victim = files.sorted().findFirst().get();
+            }
+            byte[] content = Files.readAllBytes(victim);
+            Files.delete(victim);
+            if (new ProcessBuilder("mkfifo", victim.toString()).inheritIO().start().waitFor() != 0) {
+                throw new IOException("mkfifo failed");
+            }
+
+            // 第8个顺串写出后开始后台合并，打开管道写端会等到合并打开读端
+            sorter.add(nums, bufferSize * (runCount - 1), nums.length);
+            try (FileChannel pipe = FileChannel.open(victim, StandardOpenOption.WRITE)) {
+                for (ByteBuffer buffer = ByteBuffer.wrap(content); buffer.hasRemaining();) {
+                    pipe.write(buffer);
+                }
+                Files.delete(victim);
+                Files.createDirectory(victim);
+                Files.createFile(victim.resolve("keep"));
+            }
+
+            // 不加入元素的add只检查后台合并是否失败
+            boolean failed = false;
+            for (long deadline = System.nanoTime() + 30_000_000_000L; !failed && System.nanoTime() < deadline;) {
+                try {
+                    sorter.add(nums, 0, 0);
+                    Thread.sleep(10);
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            failures += report("释放失败时记录异常", failed);
+
+            List<Path> merged;
+            try (Stream<Path> files = Files.list(directory)) {
+                merged = files.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            boolean kept = merged.size() == 1;
+            if (kept) {
+                int[] expected = nums.clone();
+                Arrays.sort(expected);
+                int[] actual = new int[nums.length];
+                ByteBuffer.wrap(Files.readAllBytes(merged.get(0))).order(ByteOrder.nativeOrder()).asIntBuffer()
+                        .get(actual);
+                kept = Files.size(merged.get(0)) == nums.length * Integer.BYTES && Arrays.equals(expected, actual);
+            }
+            failures += report("释放失败时保留合并结果", kept);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static int report(String name, boolean passed) {
+        System.out.printf("== %s: %s\n", name, passed ? "通过" : "失败");
+        return passed ? 0 : 1;
+    }
+}
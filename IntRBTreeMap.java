@@ -0,0 +1,670 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * int键红黑树映射 - 键为int的有序映射，键直接存放在节点中，不装箱。查找、插入、删除都按int比较，
+ * get、containsKey、导航方法都不分配对象，适合作为从int键到记录的索引。
+ *
+ * 旋转、插入修正、删除修正的算法同{@link RBTree}与{@link RBTreeMap}。导航方法直接返回树节点{@link Entry}，
+ * 节点被删除后不再属于映射，不应继续使用。需要视图、比较器等完整{@link java.util.NavigableMap}语义时用{@link RBTreeMap}。
+ *
+ * 时间复杂度：查找、插入、删除O(logN)
+ *
+ * @param <V> 值
+ */
+public class IntRBTreeMap<V> implements Iterable<IntRBTreeMap.Entry<V>> {
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
+    private Entry<V> root;
+    private int size;
+
+    /**
+     * 结构修改（插入、删除）的次数，用于迭代器的快速失败检查
+     */
+    private int modCount;
+
+    /**
+     * 以键、值为参数的回调，键不装箱
+     */
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return getEntry(key) != null;
+    }
+
+    /**
+     * @return key对应的值，不存在时为null
+     */
+    public V get(int key) {
+        Entry<V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @return key对应的值，不存在时为defaultValue
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        Entry<V> entry = getEntry(key);
+        return entry == null ? defaultValue : entry.value;
+    }
+
+    /**
+     * 插入键值对，键已存在时替换值
+     *
+     * @return 键原来对应的值，不存在时为null
+     */
+    public V put(int key, V value) {
+        Entry<V> parent = null;
+        Entry<V> node = root;
+        while (node != null) {
+            parent = node;
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.setValue(value);
+            }
+        }
+
+        Entry<V> inserted = new Entry<>(key, value, parent);
+        if (parent == null) {
+            root = inserted;
+        } else if (key < parent.key) {
+            parent.left = inserted;
+        } else {
+            parent.right = inserted;
+        }
+        insertFixUp(inserted);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * @return 被删除的值，键不存在时为null
+     */
+    public V remove(int key) {
+        Entry<V> entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        V value = entry.value;
+        deleteEntry(entry);
+        return value;
+    }
+
+    public void clear() {
+        modCount++;
+        size = 0;
+        root = null;
+    }
+
+    /**
+     * 键为key的节点，不存在时返回null
+     */
+    public Entry<V> getEntry(int key) {
+        Entry<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 键不小于key的最小节点，不存在时返回null
+     */
+    public Entry<V> ceilingEntry(int key) {
+        Entry<V> node = root;
+        Entry<V> best = null;
+        while (node != null) {
+            if (key < node.key) {
+                best = node;
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键大于key的最小节点，不存在时返回null
+     */
+    public Entry<V> higherEntry(int key) {
+        Entry<V> node = root;
+        Entry<V> best = null;
+        while (node != null) {
+            if (key < node.key) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键不大于key的最大节点，不存在时返回null
+     */
+    public Entry<V> floorEntry(int key) {
+        Entry<V> node = root;
+        Entry<V> best = null;
+        while (node != null) {
+            if (key > node.key) {
+                best = node;
+                node = node.right;
+            } else if (key < node.key) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键小于key的最大节点，不存在时返回null
+     */
+    public Entry<V> lowerEntry(int key) {
+        Entry<V> node = root;
+        Entry<V> best = null;
+        while (node != null) {
+            if (key > node.key) {
+                best = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键最小的节点，映射为空时返回null
+     */
+    public Entry<V> firstEntry() {
+        Entry<V> node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 键最大的节点，映射为空时返回null
+     */
+    public Entry<V> lastEntry() {
+        Entry<V> node = root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @throws NoSuchElementException 映射为空
+     */
+    public int firstKey() {
+        Entry<V> entry = firstEntry();
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.key;
+    }
+
+    /**
+     * @throws NoSuchElementException 映射为空
+     */
+    public int lastKey() {
+        Entry<V> entry = lastEntry();
+        if (entry == null) {
+            throw new NoSuchElementException();
+        }
+        return entry.key;
+    }
+
+    /**
+     * 按键的升序对每个键值对调用action
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        int expectedModCount = modCount;
+        for (Entry<V> entry = firstEntry(); entry != null; entry = successor(entry)) {
+            action.accept(entry.key, entry.value);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * 按键的升序迭代，支持通过迭代器删除
+     */
+    @Override
+    public Iterator<Entry<V>> iterator() {
+        return new Iterator<Entry<V>>() {
+            private Entry<V> next = firstEntry();
+            private Entry<V> lastReturned;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<V> next() {
+                Entry<V> entry = next;
+                if (entry == null) {
+                    throw new NoSuchElementException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                next = successor(entry);
+                lastReturned = entry;
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                deleteEntry(lastReturned); // 用后继整体取代被删节点，next仍然有效
+                expectedModCount = modCount;
+                lastReturned = null;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (Entry<V> entry = firstEntry(); entry != null; entry = successor(entry)) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(entry);
+        }
+        return builder.append('}').toString();
+    }
+
+    private static <V> Entry<V> successor(Entry<V> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        Entry<V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private static boolean colorOf(Entry<?> node) {
+        return node != null ? node.color : BLACK;
+    }
+
+    private static boolean isRed(Entry<?> node) {
+        return colorOf(node) == RED;
+    }
+
+    private static boolean isBlack(Entry<?> node) {
+        return colorOf(node) == BLACK;
+    }
+
+    private static void setColor(Entry<?> node, boolean color) {
+        if (node != null) {
+            node.color = color;
+        }
+    }
+
+    private static <V> Entry<V> parentOf(Entry<V> node) {
+        return node != null ? node.parent : null;
+    }
+
+    /**
+     * 左旋，见{@link RBTree}中的示意图
+     */
+    private void leftRotate(Entry<V> x) {
+        Entry<V> y = x.right;
+        x.right = y.left;
+        if (y.left != null) {
+            y.left.parent = x;
+        }
+        y.parent = x.parent;
+        if (x.parent == null) {
+            root = y;
+        } else if (x.parent.left == x) {
+            x.parent.left = y;
+        } else {
+            x.parent.right = y;
+        }
+        y.left = x;
+        x.parent = y;
+    }
+
+    /**
+     * 右旋，见{@link RBTree}中的示意图
+     */
+    private void rightRotate(Entry<V> y) {
+        Entry<V> x = y.left;
+        y.left = x.right;
+        if (x.right != null) {
+            x.right.parent = y;
+        }
+        x.parent = y.parent;
+        if (y.parent == null) {
+            root = x;
+        } else if (y.parent.right == y) {
+            y.parent.right = x;
+        } else {
+            y.parent.left = x;
+        }
+        x.right = y;
+        y.parent = x;
+    }
+
+    /**
+     * 插入修正，各情形同{@link RBTree}
+     */
+    private void insertFixUp(Entry<V> node) {
+        Entry<V> parent;
+        while ((parent = parentOf(node)) != null && isRed(parent)) {
+            Entry<V> gparent = parentOf(parent);
+            if (parent == gparent.left) {
+                Entry<V> uncle = gparent.right;
+                // Case 1：叔叔节点是红色
+                if (isRed(uncle)) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                // Case 2：叔叔是黑色，且当前节点是右孩子
+                if (parent.right == node) {
+                    leftRotate(parent);
+                    Entry<V> tmp = parent;
+                    parent = node;
+                    node = tmp;
+                }
+                // Case 3：叔叔是黑色，且当前节点是左孩子
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                rightRotate(gparent);
+            } else {
+                Entry<V> uncle = gparent.left;
+                if (isRed(uncle)) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                if (parent.left == node) {
+                    rightRotate(parent);
+                    Entry<V> tmp = parent;
+                    parent = node;
+                    node = tmp;
+                }
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                leftRotate(gparent);
+            }
+        }
+        setColor(root, BLACK);
+    }
+
+    /**
+     * 删除节点，算法同{@link RBTreeMap}：有两个孩子时用后继节点取代node的位置与颜色
+     */
+    private void deleteEntry(Entry<V> node) {
+        modCount++;
+        size--;
+        Entry<V> child;
+        Entry<V> parent;
+        boolean color;
+        if (node.left != null && node.right != null) {
+            Entry<V> replace = node.right;
+            while (replace.left != null) {
+                replace = replace.left;
+            }
+            if (node.parent == null) {
+                root = replace;
+            } else if (node.parent.left == node) {
+                node.parent.left = replace;
+            } else {
+                node.parent.right = replace;
+            }
+
+            child = replace.right;
+            parent = replace.parent;
+            color = replace.color;
+            if (parent == node) {
+                parent = replace;
+            } else {
+                if (child != null) {
+                    child.parent = parent;
+                }
+                parent.left = child;
+                replace.right = node.right;
+                node.right.parent = replace;
+            }
+            replace.parent = node.parent;
+            replace.color = node.color;
+            replace.left = node.left;
+            node.left.parent = replace;
+        } else {
+            child = node.left != null ? node.left : node.right;
+            parent = node.parent;
+            color = node.color;
+            if (child != null) {
+                child.parent = parent;
+            }
+            if (parent == null) {
+                root = child;
+            } else if (parent.left == node) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+        }
+        if (color == BLACK) {
+            removeFixUp(child, parent);
+        }
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+    }
+
+    /**
+     * 删除修正，各情形同{@link RBTree}
+     */
+    private void removeFixUp(Entry<V> node, Entry<V> parent) {
+        while (isBlack(node) && node != root) {
+            if (parent.left == node) {
+                Entry<V> other = parent.right;
+                // Case 1: 兄弟是红色的
+                if (isRed(other)) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    leftRotate(parent);
+                    other = parent.right;
+                }
+                if (isBlack(other.left) && isBlack(other.right)) {
+                    // Case 2: 兄弟是黑色，且兄弟的两个孩子也都是黑色的
+                    setColor(other, RED);
+                    node = parent;
+                    parent = parentOf(node);
+                } else {
+                    // Case 3: 兄弟是黑色的，兄弟的左孩子是红色，右孩子为黑色
+                    if (isBlack(other.right)) {
+                        setColor(other.left, BLACK);
+                        setColor(other, RED);
+                        rightRotate(other);
+                        other = parent.right;
+                    }
+                    // Case 4: 兄弟是黑色的，兄弟的右孩子是红色的
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(other.right, BLACK);
+                    leftRotate(parent);
+                    node = root;
+                    break;
+                }
+            } else {
+                Entry<V> other = parent.left;
+                if (isRed(other)) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    rightRotate(parent);
+                    other = parent.left;
+                }
+                if (isBlack(other.left) && isBlack(other.right)) {
+                    setColor(other, RED);
+                    node = parent;
+                    parent = parentOf(node);
+                } else {
+                    if (isBlack(other.left)) {
+                        setColor(other.right, BLACK);
+                        setColor(other, RED);
+                        leftRotate(other);
+                        other = parent.left;
+                    }
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(other.left, BLACK);
+                    rightRotate(parent);
+                    node = root;
+                    break;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    /**
+     * 检查红黑树的性质，见{@link RBTreeMap#checkInvariants()}
+     */
+    boolean checkInvariants() {
+        if (isRed(root) || (root != null && root.parent != null)) {
+            return false;
+        }
+        int[] count = new int[1];
+        return blackHeight(root, count) >= 0 && count[0] == size;
+    }
+
+    private int blackHeight(Entry<V> node, int[] count) {
+        if (node == null) {
+            return 0;
+        }
+        count[0]++;
+        if (node.left != null && (node.left.parent != node || node.left.key >= node.key)) {
+            return -1;
+        }
+        if (node.right != null && (node.right.parent != node || node.right.key <= node.key)) {
+            return -1;
+        }
+        if (isRed(node) && (isRed(node.left) || isRed(node.right))) {
+            return -1;
+        }
+        int left = blackHeight(node.left, count);
+        int right = blackHeight(node.right, count);
+        if (left < 0 || left != right) {
+            return -1;
+        }
+        return left + (isBlack(node) ? 1 : 0);
+    }
+
+    /**
+     * 树节点，键为int
+     */
+    public static final class Entry<V> {
+        private final int key;
+        private V value;
+        private Entry<V> left;
+        private Entry<V> right;
+        private Entry<V> parent;
+        private boolean color = RED;
+
+        private Entry(int key, V value, Entry<V> parent) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * 替换值，直接修改映射
+         *
+         * @return 原来的值
+         */
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?> e = (Entry<?>) o;
+            return key == e.key && Objects.equals(value, e.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return key ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * 流式Top-K - 在数据流中维护最大（或最小）的k个int，只占用一个长度为k的堆，适用于无法一次放入数组的输入。
+ *
+ * 求最大的k个元素时维护一个小顶堆：新元素不大于堆顶时直接丢弃，否则替换堆顶并下沉。
+ * 求最小的k个元素时把比较方向反过来。已排满k个后，绝大多数元素只需与堆顶比较一次。
+ *
+ * 时间复杂度：每个元素O(logk)，最坏情况 空间复杂度：O(k)
+ */
+public class IntTopK {
+
+    private final int[] heap;
+    private final boolean largest;
+    private int size = 0;
+
+    /**
+     * @param k       保留的元素个数
+     * @param largest true保留最大的k个，false保留最小的k个
+     */
+    public IntTopK(int k, boolean largest) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.heap = new int[k];
+        this.largest = largest;
+    }
+
+    /**
+     * 加入一个元素
+     */
+    public void offer(int num) {
+        if (size < heap.length) {
+            heap[size] = num;
+            siftUp(size++);
+        } else if (largest ? num > heap[0] : num < heap[0]) {
+            heap[0] = num;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 加入nums[fromIndex, toIndex)中的所有元素
+     */
+    public void offer(int[] nums, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            offer(nums[i]);
+        }
+    }
+
+    /**
+     * 当前保留的元素个数，不超过k
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前第k大（或第k小）的元素，即堆顶；尚未排满k个时为已有元素中最小（或最大）的一个
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * 返回当前保留的元素，最大的k个按降序排列，最小的k个按升序排列
+     */
+    public int[] toSortedArray() {
+        int[] result = Arrays.copyOf(heap, size);
+        Sort.sort(result);
+        if (largest) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int temp = result[i];
+                result[i] = result[j];
+                result[j] = temp;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清空所有元素
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * a是否应比b更靠近堆顶
+     */
+    private boolean above(int a, int b) {
+        return largest ? a < b : a > b;
+    }
+
+    private void siftUp(int i) {
+        int num = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(num, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = num;
+    }
+
+    private void siftDown(int i) {
+        int num = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && above(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!above(heap[child], num)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = num;
+    }
+}
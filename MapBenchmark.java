@@ -0,0 +1,299 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Java 语言: 有序映射性能测试
+ *
+ * 用法：
+ *
+ * <pre>
+ * java MapBenchmark [最大元素个数]     比较TreeMap、RBTreeMap与IntRBTreeMap
+ * java MapBenchmark trees [元素个数]   比较RBTree与PooledRBTree的耗时与内存
+ * </pre>
+ *
+ * 对java.util.TreeMap、RBTreeMap与IntRBTreeMap分别计时随机插入、命中查找、lower查找与删除，
+ * 取多轮耗时的中位数，并统计每次操作的堆分配字节数（HotSpot的ThreadMXBean）。
+ * TreeMap与RBTreeMap的键预先装箱，查找时不计装箱的开销；IntRBTreeMap直接以int查找。
+ * trees模式另外在GC后统计树本身占用的堆内存。
+ */
+public class MapBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 7;
+    private static final int[] SIZES = { 1 << 10, 1 << 16, 1 << 20 };
+    private static final String[] OPERATIONS = { "put", "get", "lower", "remove" };
+
+    /**
+     * 待测的映射，各操作返回一个依赖结果的数，防止JIT消除
+     */
+    private interface Subject {
+        long run(String operation, int[] keys, Integer[] boxed, Timer timer);
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("trees")) {
+            runTrees(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 22);
+            return;
+        }
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        String[] names = { "TreeMap", "RBTreeMap", "IntRBTreeMap" };
+        Subject[] subjects = { MapBenchmark::runTreeMap, MapBenchmark::runRBTreeMap, MapBenchmark::runIntRBTreeMap };
+
+        System.out.printf("%-14s %-8s %10s %12s %10s\n", "映射", "操作", "元素个数", "ns/操作", "B/操作");
+        for (int size : SIZES) {
+            if (size > maxSize) {
+                break;
+            }
+            Random random = new Random(size);
+            int[] keys = new int[size];
+            Integer[] boxed = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextInt();
+                boxed[i] = keys[i];
+            }
+            for (String operation : OPERATIONS) {
+                for (int i = 0; i < subjects.length; i++) {
+                    double[] result = measure(subjects[i], operation, keys, boxed);
+                    System.out.printf("%-14s %-8s %10d %12.1f %10.1f\n", names[i], operation, size, result[0],
+                            result[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 每次操作的纳秒数与分配字节数
+     */
+    private static double[] measure(Subject subject, String operation, int[] keys, Integer[] boxed) {
+        long sink = 0;
+        Timer timer = new Timer();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += subject.run(operation, keys, boxed, timer);
+        }
+        long[] elapsed = new long[MEASURE_ROUNDS];
+        long allocated = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            sink += subject.run(operation, keys, boxed, timer);
+            elapsed[i] = timer.elapsedNanos;
+            allocated += timer.allocatedBytes;
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        Arrays.sort(elapsed);
+        return new double[] { (double) elapsed[MEASURE_ROUNDS / 2] / keys.length,
+                (double) allocated / MEASURE_ROUNDS / keys.length };
+    }
+
+    /**
+     * 只记录被测的操作本身，建表等准备工作不计入
+     */
+    private static final class Timer {
+        long elapsedNanos;
+        long allocatedBytes;
+        private long startNanos;
+        private long startAllocated;
+
+        void start() {
+            startAllocated = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        void stop() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            allocatedBytes = allocatedBytes() - startAllocated;
+        }
+    }
+
+    private static long runTreeMap(String operation, int[] keys, Integer[] boxed, Timer timer) {
+        TreeMap<Integer, Integer> map = new TreeMap<>();
+        long sink = 0;
+        if (operation.equals("put")) {
+            timer.start();
+        }
+        for (Integer key : boxed) {
+            map.put(key, key);
+        }
+        switch (operation) {
+        case "put":
+            timer.stop();
+            sink = map.size();
+            break;
+        case "get":
+            timer.start();
+            for (Integer key : boxed) {
+                sink += map.get(key);
+            }
+            timer.stop();
+            break;
+        case "lower":
+            timer.start();
+            for (Integer key : boxed) {
+                Integer lower = map.lowerKey(key);
+                sink += lower == null ? 0 : lower;
+            }
+            timer.stop();
+            break;
+        default:
+            timer.start();
+            for (Integer key : boxed) {
+                sink += map.remove(key) == null ? 0 : 1;
+            }
+            timer.stop();
+        }
+        return sink;
+    }
+
+    private static long runRBTreeMap(String operation, int[] keys, Integer[] boxed, Timer timer) {
+        RBTreeMap<Integer, Integer> map = new RBTreeMap<>();
+        long sink = 0;
+        if (operation.equals("put")) {
+            timer.start();
+        }
+        for (Integer key : boxed) {
+            map.put(key, key);
+        }
+        switch (operation) {
+        case "put":
+            timer.stop();
+            sink = map.size();
+            break;
+        case "get":
+            timer.start();
+            for (Integer key : boxed) {
+                sink += map.get(key);
+            }
+            timer.stop();
+            break;
+        case "lower":
+            timer.start();
+            for (Integer key : boxed) {
+                Integer lower = map.lowerKey(key);
+                sink += lower == null ? 0 : lower;
+            }
+            timer.stop();
+            break;
+        default:
+            timer.start();
+            for (Integer key : boxed) {
+                sink += map.remove(key) == null ? 0 : 1;
+            }
+            timer.stop();
+        }
+        return sink;
+    }
+
+    private static long runIntRBTreeMap(String operation, int[] keys, Integer[] boxed, Timer timer) {
+        IntRBTreeMap<Integer> map = new IntRBTreeMap<>();
+        long sink = 0;
+        if (operation.equals("put")) {
+            timer.start();
+        }
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], boxed[i]);
+        }
+        switch (operation) {
+        case "put":
+            timer.stop();
+            sink = map.size();
+            break;
+        case "get":
+            timer.start();
+            for (int key : keys) {
+                sink += map.get(key);
+            }
+            timer.stop();
+            break;
+        case "lower":
+            timer.start();
+            for (int key : keys) {
+                IntRBTreeMap.Entry<Integer> lower = map.lowerEntry(key);
+                sink += lower == null ? 0 : lower.getKey();
+            }
+            timer.stop();
+            break;
+        default:
+            timer.start();
+            for (int key : keys) {
+                sink += map.remove(key) == null ? 0 : 1;
+            }
+            timer.stop();
+        }
+        return sink;
+    }
+
+    /**
+     * 随机插入size个键再全部删除，比较RBTree与PooledRBTree每个键的耗时、分配量与插入完成后树占用的堆内存
+     */
+    private static void runTrees(int size) {
+        Random random = new Random(size);
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt();
+        }
+        System.out.printf("%-14s %10s %14s %14s %12s %12s\n", "树", "元素个数", "插入ns/个", "删除ns/个", "分配B/个",
+                "占用B/个");
+        for (int round = 0; round < 3; round++) {
+            for (String name : new String[] { "RBTree", "PooledRBTree" }) {
+                long before = usedHeap();
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                Object tree;
+                if (name.equals("RBTree")) {
+                    RBTree rbTree = new RBTree();
+                    for (int key : keys) {
+                        rbTree.insert(key);
+                    }
+                    tree = rbTree;
+                } else {
+                    PooledRBTree pooled = new PooledRBTree();
+                    for (int key : keys) {
+                        pooled.insert(key);
+                    }
+                    tree = pooled;
+                }
+                long insertNanos = System.nanoTime() - start;
+                long allocated = allocatedBytes() - allocatedBefore;
+                long retained = usedHeap() - before;
+
+                start = System.nanoTime();
+                if (tree instanceof RBTree) {
+                    for (int key : keys) {
+                        ((RBTree) tree).remove(key);
+                    }
+                } else {
+                    for (int key : keys) {
+                        ((PooledRBTree) tree).remove(key);
+                    }
+                }
+                long removeNanos = System.nanoTime() - start;
+                System.out.printf("%-14s %10d %14.1f %14.1f %12.1f %12.1f\n", name, size, (double) insertNanos / size,
+                        (double) removeNanos / size, (double) allocated / size, (double) retained / size);
+            }
+        }
+    }
+
+    /**
+     * GC后已使用的堆内存
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 当前线程已分配的堆字节数，不支持时返回0
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+    }
+}
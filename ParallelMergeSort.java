@@ -0,0 +1,147 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行归并排序 - {@link Sort#parallelMergeSort(int[], int)}与{@link Sort#parallelArgsort(int[])}等并行间接排序共用的实现。
+ *
+ * 左右两半在ForkJoinPool中并行排序，合并阶段同样并行：取较长有序区间的中位元素，在另一有序区间中二分查找其位置，
+ * 把一次合并拆成两个互不相干的子合并。与顺序归并排序一样，两半在src与dst之间交替读写。
+ *
+ * comparator为null时按int的自然顺序比较元素，顺序部分使用{@link Sort}中的int归并排序；
+ * 否则把元素当作下标，用comparator比较其对应的数据，顺序部分使用{@link ArgSort}中的下标归并排序。
+ */
+final class ParallelMergeSort {
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * 在pool中将src[beginIndex, endIndex)排序后写入dst，调用前两者在该区间内的内容必须相同
+     *
+     * @param threshold  区间长度不超过该值时转为顺序排序/顺序合并，须为正数
+     * @param comparator 下标比较器，为null时按自然顺序比较
+     */
+    static void sort(ForkJoinPool pool, int[] src, int[] dst, int beginIndex, int endIndex, int threshold,
+            Sort.IndexComparator comparator) {
+        pool.invoke(new MergeSortTask(src, dst, beginIndex, endIndex, threshold, comparator));
+    }
+
+    /**
+     * 在有序区间src[beginIndex, endIndex)中查找第一个不小于（strict为true时为大于）key的位置
+     */
+    private static int search(int[] src, int beginIndex, int endIndex, int key, boolean strict,
+            Sort.IndexComparator comparator) {
+        int low = beginIndex;
+        int high = endIndex;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = comparator == null ? Integer.compare(src[mid], key) : comparator.compare(src[mid], key);
+            if (c < 0 || (strict && c == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 排序任务，语义同{@link Sort#mergeSort(int[], int[], int, int)}
+     */
+    private static final class MergeSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int beginIndex;
+        private final int endIndex;
+        private final int threshold;
+        private final Sort.IndexComparator comparator;
+
+        MergeSortTask(int[] src, int[] dst, int beginIndex, int endIndex, int threshold,
+                Sort.IndexComparator comparator) {
+            this.src = src;
+            this.dst = dst;
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+            this.threshold = threshold;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (endIndex - beginIndex <= threshold) {
+                if (comparator == null) {
+                    Sort.mergeSort(src, dst, beginIndex, endIndex);
+                } else {
+                    ArgSort.mergeSort(src, dst, beginIndex, endIndex, comparator);
+                }
+                return;
+            }
+            int midIndex = (beginIndex + endIndex) >>> 1;
+            invokeAll(new MergeSortTask(dst, src, beginIndex, midIndex, threshold, comparator),
+                    new MergeSortTask(dst, src, midIndex, endIndex, threshold, comparator));
+            new MergeTask(src, beginIndex, midIndex, midIndex, endIndex, dst, beginIndex, threshold, comparator)
+                    .compute();
+        }
+    }
+
+    /**
+     * 合并任务：合并src[aBegin, aEnd)与src[bBegin, bEnd)到dst[dstBegin...]，相等时优先取a中的
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int aBegin;
+        private final int aEnd;
+        private final int bBegin;
+        private final int bEnd;
+        private final int[] dst;
+        private final int dstBegin;
+        private final int threshold;
+        private final Sort.IndexComparator comparator;
+
+        MergeTask(int[] src, int aBegin, int aEnd, int bBegin, int bEnd, int[] dst, int dstBegin, int threshold,
+                Sort.IndexComparator comparator) {
+            this.src = src;
+            this.aBegin = aBegin;
+            this.aEnd = aEnd;
+            this.bBegin = bBegin;
+            this.bEnd = bEnd;
+            this.dst = dst;
+            this.dstBegin = dstBegin;
+            this.threshold = threshold;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int aLength = aEnd - aBegin;
+            int bLength = bEnd - bBegin;
+            // 两段都只有一个元素时拆分不能使子任务变小（threshold为1时会无限递归），直接合并
+            if (aLength + bLength <= threshold || aLength == 0 || bLength == 0 || (aLength <= 1 && bLength <= 1)) {
+                if (comparator == null) {
+                    Sort.merge(src, aBegin, aEnd, src, bBegin, bEnd, dst, dstBegin);
+                } else {
+                    ArgSort.merge(src, aBegin, aEnd, bBegin, bEnd, dst, dstBegin, comparator);
+                }
+                return;
+            }
+            int aSplit;
+            int bSplit;
+            if (aLength >= bLength) {
+                // a中的中位元素与b中相等的元素必须排在b之前：在b中找第一个不小于它的位置
+                aSplit = (aBegin + aEnd) >>> 1;
+                bSplit = search(src, bBegin, bEnd, src[aSplit], false, comparator);
+            } else {
+                // b中的中位元素与a中相等的元素必须排在a之后：在a中找第一个大于它的位置
+                bSplit = (bBegin + bEnd) >>> 1;
+                aSplit = search(src, aBegin, aEnd, src[bSplit], true, comparator);
+            }
+            int dstSplit = dstBegin + (aSplit - aBegin) + (bSplit - bBegin);
+            invokeAll(new MergeTask(src, aBegin, aSplit, bBegin, bSplit, dst, dstBegin, threshold, comparator),
+                    new MergeTask(src, aSplit, aEnd, bSplit, bEnd, dst, dstSplit, threshold, comparator));
+        }
+    }
+}
@@ -0,0 +1,504 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 数组池红黑树 - 与{@link RBTree}功能相同的int红黑树，节点不是对象，而是四个平行int数组中的同一个下标（struct of arrays）：
+ * keys存键，lefts、rights存左右孩子的下标，parentColors的高31位存父节点的下标、最低位存颜色。
+ *
+ * 下标0是哨兵节点nil，代替null作为叶子与根的父节点，颜色恒为黑色；删除时按算法导论的写法临时借用它的父指针。
+ * 删除的节点下标通过lefts串成空闲链表，插入时优先复用，数组只在没有空闲下标时倍增。
+ *
+ * 每个节点占16字节，RBTree的RBTNode对象（对象头、三个引用、int、boolean以及指向外部RBTree的隐藏引用）约40字节，
+ * 节点集中在四个数组中，插入删除几乎不产生垃圾，clear()后数组保留以便复用。
+ * 与RBTree一样允许重复的键，remove每次删除一个。
+ *
+ * 时间复杂度：查找、插入、删除O(logN) 最多容纳2^30 - 1个节点
+ */
+public class PooledRBTree {
+
+    private static final int NIL = 0;
+    private static final int RED = 0;
+    private static final int BLACK = 1;
+
+    /**
+     * 父节点下标左移一位后需为非负int
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private int[] lefts;
+    private int[] rights;
+    private int[] parentColors;
+
+    private int root = NIL;
+    private int size;
+
+    /**
+     * 从未使用过的第一个下标
+     */
+    private int allocated = 1;
+
+    /**
+     * 空闲链表的表头，链表通过lefts相连，NIL表示为空
+     */
+    private int freeList = NIL;
+
+    public PooledRBTree() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity 初始可容纳的节点数，超过时自动扩容
+     */
+    public PooledRBTree(int initialCapacity) {
+        if (initialCapacity < 0 || initialCapacity >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+        }
+        int capacity = initialCapacity + 1;
+        keys = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        parentColors = new int[capacity];
+        parentColors[NIL] = BLACK;
+    }
+
+    private int parentOf(int node) {
+        return parentColors[node] >>> 1;
+    }
+
+    private int colorOf(int node) {
+        return parentColors[node] & 1;
+    }
+
+    private void setParent(int node, int parent) {
+        parentColors[node] = parent << 1 | (parentColors[node] & 1);
+    }
+
+    private void setColor(int node, int color) {
+        parentColors[node] = (parentColors[node] & ~1) | color;
+    }
+
+    /**
+     * 取一个空闲下标作为新的红色节点
+     */
+    private int newNode(int key, int parent) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = lefts[node];
+        } else {
+            if (allocated == keys.length) {
+                grow();
+            }
+            node = allocated++;
+        }
+        keys[node] = key;
+        lefts[node] = NIL;
+        rights[node] = NIL;
+        parentColors[node] = parent << 1 | RED;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        lefts[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("tree is full: " + size);
+        }
+        int capacity = (int) Math.min(MAX_CAPACITY, Math.max(16L, 2L * keys.length));
+        keys = Arrays.copyOf(keys, capacity);
+        lefts = Arrays.copyOf(lefts, capacity);
+        rights = Arrays.copyOf(rights, capacity);
+        parentColors = Arrays.copyOf(parentColors, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 当前数组可容纳的节点数
+     */
+    public int capacity() {
+        return keys.length - 1;
+    }
+
+    /**
+     * 清空树，数组保留
+     */
+    public void clear() {
+        root = NIL;
+        size = 0;
+        allocated = 1;
+        freeList = NIL;
+        parentColors[NIL] = BLACK;
+    }
+
+    /**
+     * 插入key，已存在相同的键时也插入（与RBTree一致）
+     */
+    public void insert(int key) {
+        int parent = NIL;
+        int node = root;
+        // 寻找合适的父节点
+        while (node != NIL) {
+            parent = node;
+            node = key < keys[node] ? lefts[node] : rights[node];
+        }
+        int inserted = newNode(key, parent);
+        if (parent == NIL) {
+            root = inserted;
+        } else if (key < keys[parent]) {
+            lefts[parent] = inserted;
+        } else {
+            rights[parent] = inserted;
+        }
+        insertFixUp(inserted);
+        size++;
+    }
+
+    /**
+     * 删除一个键为key的节点
+     *
+     * @return key是否存在
+     */
+    public boolean remove(int key) {
+        int node = search(key);
+        if (node == NIL) {
+            return false;
+        }
+        delete(node);
+        return true;
+    }
+
+    public boolean contains(int key) {
+        return search(key) != NIL;
+    }
+
+    private int search(int key) {
+        int node = root;
+        while (node != NIL && keys[node] != key) {
+            node = key < keys[node] ? lefts[node] : rights[node];
+        }
+        return node;
+    }
+
+    /**
+     * 最小的键，树为空时返回Integer.MIN_VALUE（与RBTree一致）
+     */
+    public int minimum() {
+        return root == NIL ? Integer.MIN_VALUE : keys[minimum(root)];
+    }
+
+    /**
+     * 最大的键，树为空时返回Integer.MIN_VALUE（与RBTree一致）
+     */
+    public int maximum() {
+        return root == NIL ? Integer.MIN_VALUE : keys[maximum(root)];
+    }
+
+    private int minimum(int node) {
+        while (lefts[node] != NIL) {
+            node = lefts[node];
+        }
+        return node;
+    }
+
+    private int maximum(int node) {
+        while (rights[node] != NIL) {
+            node = rights[node];
+        }
+        return node;
+    }
+
+    private int successor(int node) {
+        if (rights[node] != NIL) {
+            return minimum(rights[node]);
+        }
+        int parent = parentOf(node);
+        while (parent != NIL && node == rights[parent]) {
+            node = parent;
+            parent = parentOf(parent);
+        }
+        return parent;
+    }
+
+    /**
+     * 按升序对每个键调用action，沿父指针遍历，不递归
+     */
+    public void forEach(IntConsumer action) {
+        if (root == NIL) {
+            return;
+        }
+        for (int node = minimum(root); node != NIL; node = successor(node)) {
+            action.accept(keys[node]);
+        }
+    }
+
+    /**
+     * 按升序返回所有键
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int[] index = new int[1];
+        forEach(key -> result[index[0]++] = key);
+        return result;
+    }
+
+    /**
+     * 左旋，见{@link RBTree}中的示意图
+     */
+    private void leftRotate(int x) {
+        int y = rights[x];
+        rights[x] = lefts[y];
+        if (lefts[y] != NIL) {
+            setParent(lefts[y], x);
+        }
+        int parent = parentOf(x);
+        setParent(y, parent);
+        if (parent == NIL) {
+            root = y;
+        } else if (lefts[parent] == x) {
+            lefts[parent] = y;
+        } else {
+            rights[parent] = y;
+        }
+        lefts[y] = x;
+        setParent(x, y);
+    }
+
+    /**
+     * 右旋，见{@link RBTree}中的示意图
+     */
+    private void rightRotate(int y) {
+        int x = lefts[y];
+        lefts[y] = rights[x];
+        if (rights[x] != NIL) {
+            setParent(rights[x], y);
+        }
+        int parent = parentOf(y);
+        setParent(x, parent);
+        if (parent == NIL) {
+            root = x;
+        } else if (rights[parent] == y) {
+            rights[parent] = x;
+        } else {
+            lefts[parent] = x;
+        }
+        rights[x] = y;
+        setParent(y, x);
+    }
+
+    /**
+     * 插入修正，各情形同{@link RBTree}。根的父节点是黑色的nil，循环不需要判断父节点是否存在
+     */
+    private void insertFixUp(int node) {
+        while (colorOf(parentOf(node)) == RED) {
+            int parent = parentOf(node);
+            int gparent = parentOf(parent);
+            if (parent == lefts[gparent]) {
+                int uncle = rights[gparent];
+                // Case 1：叔叔节点是红色
+                if (colorOf(uncle) == RED) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                // Case 2：叔叔是黑色，且当前节点是右孩子
+                if (node == rights[parent]) {
+                    node = parent;
+                    leftRotate(node);
+                    parent = parentOf(node);
+                }
+                // Case 3：叔叔是黑色，且当前节点是左孩子
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                rightRotate(gparent);
+            } else {
+                int uncle = lefts[gparent];
+                if (colorOf(uncle) == RED) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                if (node == lefts[parent]) {
+                    node = parent;
+                    rightRotate(node);
+                    parent = parentOf(node);
+                }
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                leftRotate(gparent);
+            }
+        }
+        setColor(root, BLACK);
+    }
+
+    /**
+     * 用以v为根的子树取代以u为根的子树，v为nil时也设置它的父指针，供删除修正使用
+     */
+    private void transplant(int u, int v) {
+        int parent = parentOf(u);
+        if (parent == NIL) {
+            root = v;
+        } else if (u == lefts[parent]) {
+            lefts[parent] = v;
+        } else {
+            rights[parent] = v;
+        }
+        setParent(v, parent);
+    }
+
+    /**
+     * 删除节点：有两个孩子时用后继节点取代它的位置与颜色，再从后继原来的位置修正；被删的下标放回空闲链表
+     */
+    private void delete(int node) {
+        int child;
+        int removedColor = colorOf(node);
+        if (lefts[node] == NIL) {
+            child = rights[node];
+            transplant(node, child);
+        } else if (rights[node] == NIL) {
+            child = lefts[node];
+            transplant(node, child);
+        } else {
+            int replace = minimum(rights[node]);
+            removedColor = colorOf(replace);
+            child = rights[replace];
+            if (parentOf(replace) == node) {
+                setParent(child, replace);
+            } else {
+                transplant(replace, child);
+                rights[replace] = rights[node];
+                setParent(rights[replace], replace);
+            }
+            transplant(node, replace);
+            lefts[replace] = lefts[node];
+            setParent(lefts[replace], replace);
+            setColor(replace, colorOf(node));
+        }
+        if (removedColor == BLACK) {
+            removeFixUp(child);
+        }
+        parentColors[NIL] = BLACK;
+        freeNode(node);
+        size--;
+    }
+
+    /**
+     * 删除修正，各情形同{@link RBTree}。node可能是nil，此时它的父指针指向被删位置的父节点
+     */
+    private void removeFixUp(int node) {
+        while (node != root && colorOf(node) == BLACK) {
+            int parent = parentOf(node);
+            if (node == lefts[parent]) {
+                int other = rights[parent];
+                // Case 1: 兄弟是红色的
+                if (colorOf(other) == RED) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    leftRotate(parent);
+                    other = rights[parent];
+                }
+                if (colorOf(lefts[other]) == BLACK && colorOf(rights[other]) == BLACK) {
+                    // Case 2: 兄弟是黑色，且兄弟的两个孩子也都是黑色的
+                    setColor(other, RED);
+                    node = parent;
+                } else {
+                    // Case 3: 兄弟是黑色的，兄弟的左孩子是红色，右孩子为黑色
+                    if (colorOf(rights[other]) == BLACK) {
+                        setColor(lefts[other], BLACK);
+                        setColor(other, RED);
+                        rightRotate(other);
+                        other = rights[parent];
+                    }
+                    // Case 4: 兄弟是黑色的，兄弟的右孩子是红色的
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(rights[other], BLACK);
+                    leftRotate(parent);
+                    node = root;
+                }
+            } else {
+                int other = lefts[parent];
+                if (colorOf(other) == RED) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    rightRotate(parent);
+                    other = lefts[parent];
+                }
+                if (colorOf(lefts[other]) == BLACK && colorOf(rights[other]) == BLACK) {
+                    setColor(other, RED);
+                    node = parent;
+                } else {
+                    if (colorOf(lefts[other]) == BLACK) {
+                        setColor(rights[other], BLACK);
+                        setColor(other, RED);
+                        leftRotate(other);
+                        other = lefts[parent];
+                    }
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(lefts[other], BLACK);
+                    rightRotate(parent);
+                    node = root;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    /**
+     * 检查红黑树的性质：根与nil为黑色，红色节点的孩子为黑色，每条路径上的黑色节点数相同，
+     * 中序不减，父指针正确，节点数等于size，已分配的下标不是在树中就是在空闲链表中
+     */
+    boolean checkInvariants() {
+        if (colorOf(NIL) != BLACK || colorOf(root) != BLACK || (root != NIL && parentOf(root) != NIL)) {
+            return false;
+        }
+        int[] count = new int[1];
+        if (blackHeight(root, count) < 0 || count[0] != size) {
+            return false;
+        }
+        int free = 0;
+        for (int node = freeList; node != NIL; node = lefts[node]) {
+            free++;
+        }
+        return size + free == allocated - 1;
+    }
+
+    private int blackHeight(int node, int[] count) {
+        if (node == NIL) {
+            return 0;
+        }
+        count[0]++;
+        int left = lefts[node];
+        int right = rights[node];
+        if (left != NIL && (parentOf(left) != node || keys[left] > keys[node])) {
+            return -1;
+        }
+        if (right != NIL && (parentOf(right) != node || keys[right] < keys[node])) {
+            return -1;
+        }
+        if (colorOf(node) == RED && (colorOf(left) == RED || colorOf(right) == RED)) {
+            return -1;
+        }
+        int leftHeight = blackHeight(left, count);
+        int rightHeight = blackHeight(right, count);
+        if (leftHeight < 0 || leftHeight != rightHeight) {
+            return -1;
+        }
+        return leftHeight + (colorOf(node) == BLACK ? 1 : 0);
+    }
+}
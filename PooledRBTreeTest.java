@@ -0,0 +1,93 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Java 语言: 数组池红黑树检测
+ *
+ * 随机插入、删除（含重复的键），与用TreeMap计数的多重集合比较，并检查红黑树的性质与空闲链表；
+ * 删除后再插入应复用空闲下标而不扩容，clear()后可继续使用。
+ */
+public class PooledRBTreeTest {
+
+    private static final int OPERATIONS = 300_000;
+    private static final int KEY_RANGE = 5_000;
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        Random random = new Random(20131107);
+        PooledRBTree tree = new PooledRBTree(0);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        int size = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+            if (random.nextInt(5) < 2) {
+                boolean existed = expected.containsKey(key);
+                if (existed) {
+                    expected.merge(key, -1, Integer::sum);
+                    expected.remove(key, 0);
+                    size--;
+                }
+                check("remove", tree.remove(key) == existed);
+            } else {
+                tree.insert(key);
+                expected.merge(key, 1, Integer::sum);
+                size++;
+            }
+            check("contains", tree.contains(key) == expected.containsKey(key));
+            if (i % 1000 == 0) {
+                check("红黑树性质", tree.checkInvariants());
+                check("minimum/maximum", size == 0 || (tree.minimum() == expected.firstKey()
+                        && tree.maximum() == expected.lastKey()));
+            }
+        }
+        check("size", tree.size() == size);
+        check("toArray", Arrays.equals(toArray(expected, size), tree.toArray()));
+
+        // 删除一半后再插入同样多的键，应全部复用空闲下标
+        int capacity = tree.capacity();
+        int[] keys = tree.toArray();
+        for (int i = 0; i < keys.length; i += 2) {
+            tree.remove(keys[i]);
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            tree.insert(keys[i] + 1);
+        }
+        check("复用空闲下标", tree.capacity() == capacity && tree.checkInvariants() && tree.size() == size);
+
+        tree.clear();
+        check("clear", tree.isEmpty() && tree.minimum() == Integer.MIN_VALUE && tree.checkInvariants());
+        for (int i = 0; i < 1000; i++) {
+            tree.insert(1000 - i);
+        }
+        check("clear后插入", tree.size() == 1000 && tree.minimum() == 1 && tree.maximum() == 1000
+                && tree.capacity() == capacity && tree.checkInvariants());
+
+        System.out.printf("== %s\n", failures == 0 ? "全部通过" : "失败" + failures + "项");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int[] toArray(TreeMap<Integer, Integer> counts, int size) {
+        int[] result = new int[size];
+        int index = 0;
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                result[index++] = entry.getKey();
+            }
+        }
+        return result;
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            failures++;
+            if (failures <= 20) {
+                System.out.printf("== %s 失败\n", name);
+            }
+        }
+    }
+}
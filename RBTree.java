@@ -1,6 +1,16 @@
+import java.util.ConcurrentModificationException;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 public class RBTree {
 
     private RBTNode mRoot; // 根结点
+    private int modCount; // 结构修改的次数，迭代器据此检测并发修改
 
     private static final boolean RED = false;
     private static final boolean BLACK = true;
@@ -93,6 +103,20 @@ public class RBTree {
         }
     }
 
+    /**
+     * 以node为根的子树的节点数，node为null时为0
+     */
+    private int sizeOf(RBTNode node) {
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * 由左右孩子重新计算node的子树节点数
+     */
+    private void updateSize(RBTNode node) {
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
+    }
+
     private void preOrder(RBTNode node) {
         if (node != null) {
             System.out.print(node.key + " ");
@@ -221,6 +245,193 @@ public class RBTree {
         return Integer.MIN_VALUE;
     }
 
+    /**
+     * 树中的结点数
+     */
+    public int size() {
+        return sizeOf(mRoot);
+    }
+
+    /**
+     * 排名 - 树中小于key的键的个数，即key插入后在升序中的位置（从0开始）。
+     * 每个结点记录其子树的结点数，沿查找路径累加左子树的结点数即可，时间复杂度O(logN)
+     * 
+     * @param key 要查询的值，不必在树中
+     * @return 小于key的键的个数
+     */
+    public int rank(int key) {
+        int count = 0;
+        RBTNode node = mRoot;
+        while (node != null) {
+            if (key <= node.key) {
+                node = node.left;
+            } else {
+                count += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 不大于key的键的个数
+     */
+    private int countNotGreater(int key) {
+        int count = 0;
+        RBTNode node = mRoot;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else {
+                count += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 选择 - 升序中第k个键（从0开始），如select(size() / 2)为中位数。时间复杂度O(logN)
+     * 
+     * @param k 位置
+     * @return 第k小的键
+     * @throws IndexOutOfBoundsException k不在[0, size())中
+     */
+    public int select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("k: " + k + ", size: " + size());
+        }
+        return selectNode(k).key;
+    }
+
+    /**
+     * 升序中第k个结点，k须在[0, size())中
+     */
+    private RBTNode selectNode(int k) {
+        RBTNode node = mRoot;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * 键在[lo, hi]中的结点数，lo > hi时为0。时间复杂度O(logN)
+     */
+    public int countInRange(int lo, int hi) {
+        if (lo > hi) {
+            return 0;
+        }
+        return countNotGreater(hi) - rank(lo);
+    }
+
+    /**
+     * 键不大于key的最大结点，不存在时返回null。有重复键时返回升序中最后一个
+     */
+    public RBTNode floor(int key) {
+        RBTNode node = mRoot, found = null;
+        while (node != null) {
+            if (node.key <= key) {
+                found = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 键不小于key的最小结点，不存在时返回null。有重复键时返回升序中第一个
+     */
+    public RBTNode ceiling(int key) {
+        RBTNode node = mRoot, found = null;
+        while (node != null) {
+            if (node.key >= key) {
+                found = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 键大于key的最小结点，不存在时返回null
+     */
+    public RBTNode higher(int key) {
+        RBTNode node = mRoot, found = null;
+        while (node != null) {
+            if (node.key > key) {
+                found = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 键小于key的最大结点，不存在时返回null
+     */
+    public RBTNode lower(int key) {
+        RBTNode node = mRoot, found = null;
+        while (node != null) {
+            if (node.key < key) {
+                found = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 升序迭代器。沿父指针用successor前进，不需要栈，遍历全部N个键共O(N)
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new NodeIterator(minimum(mRoot), Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * 降序迭代器，用predecessor前进
+     */
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return new NodeIterator(maximum(mRoot), Integer.MIN_VALUE, true);
+    }
+
+    /**
+     * 按升序的可分割迭代器，可用于并行流
+     */
+    public Spliterator.OfInt spliterator() {
+        return new NodeSpliterator(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按升序的键流，调用parallel()后并行处理
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * 键在[lo, hi]中的子集视图。视图不复制结点，对树的修改直接反映在视图中；
+     * 遍历先O(logN)定位起点，再逐个前进，取k个键共O(logN + k)
+     */
+    public SubSet subSet(int lo, int hi) {
+        return new SubSet(lo, hi);
+    }
+
     /*
      * 找结点(node)的后继结点。即，查找"红黑树中数据值大于该结点"的"最小结点"。
      */
@@ -305,6 +516,10 @@ public class RBTree {
         y.left = x;
         // 将 “x的父节点” 设为 “y”
         x.parent = y;
+
+        // y取代x成为子树的根，子树节点数不变；x的子树变为lx与ly
+        y.size = x.size;
+        updateSize(x);
     }
 
     /* 
@@ -347,6 +562,10 @@ public class RBTree {
 
         // 将 “y的父节点” 设为 “x”
         y.parent = x;
+
+        // x取代y成为子树的根，子树节点数不变；y的子树变为rx与ry
+        x.size = y.size;
+        updateSize(y);
     }
 
     /*
@@ -371,10 +590,12 @@ public class RBTree {
     private void insert(RBTNode node) {
         RBTNode xNode = mRoot;
         RBTNode yNode = null;
+        modCount++;
 
-        // 寻找合适的父节点yNode
+        // 寻找合适的父节点yNode，沿途每个节点的子树都将多一个节点
         while (xNode != null) {
             yNode = xNode;
+            xNode.size++;
             if (node.key < xNode.key) {
                 xNode = xNode.left;
             } else {
@@ -489,6 +710,7 @@ public class RBTree {
     private void remove(RBTNode node) {
         RBTNode child, parent;
         boolean color;
+        modCount++;
 
         // 被删除节点的"左右孩子都不为空"的情况。
         if ((node.left != null) && (node.right != null)) {
@@ -501,6 +723,9 @@ public class RBTree {
             while (replace.left != null)
                 replace = replace.left;
 
+            // 后继节点原来位置的各祖先（包括node）的子树都将少一个节点
+            decrementSizes(parentOf(replace));
+
             // "node节点"不是根节点(只有根节点不存在父节点)
             if (parentOf(node) != null) {
                 if (parentOf(node).left == node)
@@ -534,6 +759,7 @@ public class RBTree {
 
             replace.parent = node.parent;
             replace.color = node.color;
+            replace.size = node.size;
             replace.left = node.left;
             node.left.parent = replace;
 
@@ -553,6 +779,7 @@ public class RBTree {
         parent = node.parent;
         // 保存"取代节点"的颜色
         color = node.color;
+        decrementSizes(parent);
 
         if (child != null)
             child.parent = parent;
@@ -572,6 +799,15 @@ public class RBTree {
         node = null;
     }
 
+    /**
+     * 从node开始直到根，每个节点的子树节点数减一
+     */
+    private void decrementSizes(RBTNode node) {
+        for (; node != null; node = node.parent) {
+            node.size--;
+        }
+    }
+
     /*
      * 红黑树删除修正函数
      *
@@ -676,6 +912,7 @@ public class RBTree {
     public void clear() {
         destroy(mRoot);
         mRoot = null;
+        modCount++;
     }
 
     /*
@@ -710,6 +947,7 @@ public class RBTree {
         RBTNode left; // 左孩子
         RBTNode right; // 右孩子
         RBTNode parent; // 父结点
+        int size; // 以该结点为根的子树的结点数
 
         public RBTNode(int key, boolean color, RBTNode parent, RBTNode left, RBTNode right) {
             this.key = key;
@@ -717,7 +955,208 @@ public class RBTree {
             this.parent = parent;
             this.left = left;
             this.right = right;
+            this.size = sizeOf(left) + sizeOf(right) + 1;
         }
 
+        public int getKey() {
+            return key;
+        }
+
+    }
+
+    /**
+     * 结点迭代器：next为下一个要返回的结点，越过bound（升序为上界，降序为下界，均包含）后为null
+     */
+    private final class NodeIterator implements PrimitiveIterator.OfInt {
+        private final int bound;
+        private final boolean descending;
+        private RBTNode next;
+        private int expectedModCount = modCount;
+
+        NodeIterator(RBTNode first, int bound, boolean descending) {
+            this.bound = bound;
+            this.descending = descending;
+            this.next = first != null && inBound(first) ? first : null;
+        }
+
+        private boolean inBound(RBTNode node) {
+            return descending ? node.key >= bound : node.key <= bound;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            RBTNode node = next;
+            next = descending ? predecessor(node) : successor(node);
+            if (next != null && !inBound(next)) {
+                next = null;
+            }
+            return node.key;
+        }
+    }
+
+    /**
+     * 键在[lo, hi]中的结点的可分割迭代器。
+     * 以升序中的位置[index, fence)表示范围，首次使用时才由rank定位（延迟绑定）；
+     * 分割时取中间位置，借助子树结点数O(logN)找到分割点，两半各自沿successor遍历。
+     */
+    private final class NodeSpliterator implements Spliterator.OfInt {
+        private final int lo;
+        private final int hi;
+        private int index = -1; // 下一个结点在升序中的位置，-1表示尚未绑定
+        private int fence; // 最后一个结点的位置加一
+        private RBTNode next; // 位置index上的结点，null表示尚未定位
+        private int expectedModCount;
+
+        NodeSpliterator(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * 分割出parent的前缀[parent.index, fence)
+         */
+        private NodeSpliterator(NodeSpliterator parent, int fence) {
+            this.lo = parent.lo;
+            this.hi = parent.hi;
+            this.index = parent.index;
+            this.fence = fence;
+            this.next = parent.next;
+            this.expectedModCount = parent.expectedModCount;
+        }
+
+        private void bind() {
+            if (index < 0) {
+                expectedModCount = modCount;
+                index = rank(lo);
+                fence = lo > hi ? index : countNotGreater(hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            bind();
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= fence) {
+                return false;
+            }
+            if (next == null) {
+                next = selectNode(index);
+            }
+            int key = next.key;
+            next = successor(next);
+            index++;
+            action.accept(key);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            bind();
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= fence) {
+                return;
+            }
+            RBTNode node = next != null ? next : selectNode(index);
+            int remaining = fence - index;
+            next = null;
+            index = fence;
+            for (; remaining > 0; remaining--) {
+                action.accept(node.key);
+                node = successor(node);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            bind();
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            NodeSpliterator prefix = new NodeSpliterator(this, mid);
+            index = mid;
+            next = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            bind();
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.SIZED | Spliterator.SUBSIZED
+                    | Spliterator.NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * 键在[lo, hi]中的子集视图，见subSet
+     */
+    public final class SubSet {
+        private final int lo;
+        private final int hi;
+
+        SubSet(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * 视图中的结点数，O(logN)
+         */
+        public int size() {
+            return countInRange(lo, hi);
+        }
+
+        public boolean isEmpty() {
+            RBTNode first = ceiling(lo);
+            return first == null || first.key > hi;
+        }
+
+        public boolean contains(int key) {
+            return key >= lo && key <= hi && search(key) != null;
+        }
+
+        public PrimitiveIterator.OfInt iterator() {
+            return new NodeIterator(ceiling(lo), hi, false);
+        }
+
+        public PrimitiveIterator.OfInt descendingIterator() {
+            return new NodeIterator(floor(hi), lo, true);
+        }
+
+        public Spliterator.OfInt spliterator() {
+            return new NodeSpliterator(lo, hi);
+        }
+
+        public IntStream stream() {
+            return StreamSupport.intStream(spliterator(), false);
+        }
     }
 }
\ No newline at end of file
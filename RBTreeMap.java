@@ -0,0 +1,1381 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Function;
+
+/**
+ * 红黑树映射 - 用红黑树实现的有序映射，键按比较器（为null时按自然顺序）排列，实现{@link NavigableMap}的全部操作。
+ *
+ * 旋转、插入修正、删除修正的算法同{@link RBTree}，节点另外存放值。删除有两个孩子的节点时用后继节点整体取代它（而不是复制键值），
+ * 其他节点的位置不受影响，迭代器持有的下一个节点始终有效，因此迭代中可以通过迭代器删除。
+ * subMap、headMap、tailMap与descendingMap返回视图，对视图的修改反映到原映射中，反之亦然。
+ * 迭代器是快速失败的：迭代期间映射被迭代器以外的方式修改时抛出ConcurrentModificationException。
+ * 键为int时可用{@link IntRBTreeMap}，查找不装箱。
+ *
+ * 时间复杂度：查找、插入、删除O(logN)；视图的size()需遍历，O(N)
+ *
+ * @param <K> 键
+ * @param <V> 值
+ */
+public class RBTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
+    private final Comparator<? super K> comparator;
+
+    private Node<K, V> root;
+    private int size;
+
+    /**
+     * 结构修改（插入、删除）的次数，用于迭代器的快速失败检查
+     */
+    private int modCount;
+
+    private EntrySet entrySet;
+    private KeySet<K> keySet;
+    private NavigableMap<K, V> descendingMap;
+
+    /**
+     * 按键的自然顺序排列，键需实现Comparable
+     */
+    public RBTreeMap() {
+        this.comparator = null;
+    }
+
+    /**
+     * @param comparator 比较器，为null时按键的自然顺序
+     */
+    public RBTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * 按自然顺序排列，并放入map中的所有键值对
+     */
+    public RBTreeMap(Map<? extends K, ? extends V> map) {
+        this.comparator = null;
+        putAll(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator == null ? ((Comparable<Object>) a).compareTo(b) : comparator.compare((K) a, (K) b);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * 插入键值对，键已存在时替换值
+     *
+     * @return 键原来对应的值，不存在时为null
+     */
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> parent = null;
+        Node<K, V> node = root;
+        int cmp = 0;
+        if (node == null) {
+            compare(key, key); // 空树也检查键的类型与null
+        }
+        // 寻找合适的父节点
+        while (node != null) {
+            parent = node;
+            cmp = compare(key, node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node.setValue(value);
+            }
+        }
+
+        Node<K, V> inserted = new Node<>(key, value, parent);
+        if (parent == null) {
+            root = inserted;
+        } else if (cmp < 0) {
+            parent.left = inserted;
+        } else {
+            parent.right = inserted;
+        }
+        insertFixUp(inserted);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
+        }
+        V value = node.value;
+        deleteNode(node);
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+        root = null;
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        EntrySet set = entrySet;
+        return set != null ? set : (entrySet = new EntrySet());
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        KeySet<K> set = keySet;
+        return set != null ? set : (keySet = new KeySet<>(this));
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        NavigableMap<K, V> map = descendingMap;
+        return map != null ? map : (descendingMap = new RangeView<>(this, null, null, true));
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return snapshot(getLowerNode(key));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOf(getLowerNode(key));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return snapshot(getFloorNode(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOf(getFloorNode(key));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return snapshot(getCeilingNode(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOf(getCeilingNode(key));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return snapshot(getHigherNode(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOf(getHigherNode(key));
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return snapshot(getFirstNode());
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return snapshot(getLastNode());
+    }
+
+    @Override
+    public K firstKey() {
+        return requireKey(getFirstNode());
+    }
+
+    @Override
+    public K lastKey() {
+        return requireKey(getLastNode());
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        return removeAndSnapshot(getFirstNode());
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        return removeAndSnapshot(getLastNode());
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new RangeView<>(this, bound(fromKey, fromInclusive), bound(toKey, toInclusive), false);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return new RangeView<>(this, null, bound(toKey, inclusive), false);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return new RangeView<>(this, bound(fromKey, inclusive), null, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * 查找键为key的节点，不存在时返回null
+     */
+    private Node<K, V> getNode(Object key) {
+        if (key == null && comparator == null) {
+            throw new NullPointerException();
+        }
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = compare(key, node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 键不小于key的最小节点
+     */
+    private Node<K, V> getCeilingNode(Object key) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        while (node != null) {
+            int cmp = compare(key, node.key);
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键大于key的最小节点
+     */
+    private Node<K, V> getHigherNode(Object key) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        while (node != null) {
+            if (compare(key, node.key) < 0) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键不大于key的最大节点
+     */
+    private Node<K, V> getFloorNode(Object key) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        while (node != null) {
+            int cmp = compare(key, node.key);
+            if (cmp > 0) {
+                best = node;
+                node = node.right;
+            } else if (cmp < 0) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 键小于key的最大节点
+     */
+    private Node<K, V> getLowerNode(Object key) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        while (node != null) {
+            if (compare(key, node.key) > 0) {
+                best = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    private Node<K, V> getFirstNode() {
+        Node<K, V> node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private Node<K, V> getLastNode() {
+        Node<K, V> node = root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 后继节点：右子树的最小节点，没有右子树时为第一个“node在其左子树中”的祖先
+     */
+    private static <K, V> Node<K, V> successor(Node<K, V> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * 前驱节点：左子树的最大节点，没有左子树时为第一个“node在其右子树中”的祖先
+     */
+    private static <K, V> Node<K, V> predecessor(Node<K, V> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
+        }
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * 导航方法返回的键值对是快照，不随映射变化，也不支持setValue；node为null时返回null
+     */
+    private static <K, V> Entry<K, V> snapshot(Node<K, V> node) {
+        return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.key, node.value);
+    }
+
+    /**
+     * 删除node并返回其快照，供pollFirstEntry、pollLastEntry使用；node为null时什么也不做
+     */
+    private Entry<K, V> removeAndSnapshot(Node<K, V> node) {
+        if (node == null) {
+            return null;
+        }
+        Entry<K, V> entry = snapshot(node);
+        deleteNode(node);
+        return entry;
+    }
+
+    private static <K> K keyOf(Node<K, ?> node) {
+        return node == null ? null : node.key;
+    }
+
+    private static <K> K requireKey(Node<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.key;
+    }
+
+    private static boolean colorOf(Node<?, ?> node) {
+        return node != null ? node.color : BLACK;
+    }
+
+    private static boolean isRed(Node<?, ?> node) {
+        return colorOf(node) == RED;
+    }
+
+    private static boolean isBlack(Node<?, ?> node) {
+        return colorOf(node) == BLACK;
+    }
+
+    private static void setColor(Node<?, ?> node, boolean color) {
+        if (node != null) {
+            node.color = color;
+        }
+    }
+
+    private static <K, V> Node<K, V> parentOf(Node<K, V> node) {
+        return node != null ? node.parent : null;
+    }
+
+    /**
+     * 左旋，见{@link RBTree}中的示意图
+     */
+    private void leftRotate(Node<K, V> x) {
+        Node<K, V> y = x.right;
+        x.right = y.left;
+        if (y.left != null) {
+            y.left.parent = x;
+        }
+        y.parent = x.parent;
+        if (x.parent == null) {
+            root = y;
+        } else if (x.parent.left == x) {
+            x.parent.left = y;
+        } else {
+            x.parent.right = y;
+        }
+        y.left = x;
+        x.parent = y;
+    }
+
+    /**
+     * 右旋，见{@link RBTree}中的示意图
+     */
+    private void rightRotate(Node<K, V> y) {
+        Node<K, V> x = y.left;
+        y.left = x.right;
+        if (x.right != null) {
+            x.right.parent = y;
+        }
+        x.parent = y.parent;
+        if (y.parent == null) {
+            root = x;
+        } else if (y.parent.right == y) {
+            y.parent.right = x;
+        } else {
+            y.parent.left = x;
+        }
+        x.right = y;
+        y.parent = x;
+    }
+
+    /**
+     * 插入修正，各情形同{@link RBTree}
+     *
+     * @param node 新插入的红色节点
+     */
+    private void insertFixUp(Node<K, V> node) {
+        Node<K, V> parent;
+        while ((parent = parentOf(node)) != null && isRed(parent)) {
+            Node<K, V> gparent = parentOf(parent);
+            if (parent == gparent.left) {
+                Node<K, V> uncle = gparent.right;
+                // Case 1：叔叔节点是红色
+                if (isRed(uncle)) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                // Case 2：叔叔是黑色，且当前节点是右孩子
+                if (parent.right == node) {
+                    leftRotate(parent);
+                    Node<K, V> tmp = parent;
+                    parent = node;
+                    node = tmp;
+                }
+                // Case 3：叔叔是黑色，且当前节点是左孩子
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                rightRotate(gparent);
+            } else {
+                Node<K, V> uncle = gparent.left;
+                if (isRed(uncle)) {
+                    setColor(uncle, BLACK);
+                    setColor(parent, BLACK);
+                    setColor(gparent, RED);
+                    node = gparent;
+                    continue;
+                }
+                if (parent.left == node) {
+                    rightRotate(parent);
+                    Node<K, V> tmp = parent;
+                    parent = node;
+                    node = tmp;
+                }
+                setColor(parent, BLACK);
+                setColor(gparent, RED);
+                leftRotate(gparent);
+            }
+        }
+        setColor(root, BLACK);
+    }
+
+    /**
+     * 删除节点。有两个孩子时用后继节点取代node的位置与颜色，再从后继原来的位置修正
+     */
+    private void deleteNode(Node<K, V> node) {
+        modCount++;
+        size--;
+        Node<K, V> child;
+        Node<K, V> parent;
+        boolean color;
+        if (node.left != null && node.right != null) {
+            Node<K, V> replace = node.right;
+            while (replace.left != null) {
+                replace = replace.left;
+            }
+            if (node.parent == null) {
+                root = replace;
+            } else if (node.parent.left == node) {
+                node.parent.left = replace;
+            } else {
+                node.parent.right = replace;
+            }
+
+            // 后继节点没有左孩子，它的右孩子child是需要修正的位置
+            child = replace.right;
+            parent = replace.parent;
+            color = replace.color;
+            if (parent == node) {
+                parent = replace;
+            } else {
+                if (child != null) {
+                    child.parent = parent;
+                }
+                parent.left = child;
+                replace.right = node.right;
+                node.right.parent = replace;
+            }
+            replace.parent = node.parent;
+            replace.color = node.color;
+            replace.left = node.left;
+            node.left.parent = replace;
+        } else {
+            child = node.left != null ? node.left : node.right;
+            parent = node.parent;
+            color = node.color;
+            if (child != null) {
+                child.parent = parent;
+            }
+            if (parent == null) {
+                root = child;
+            } else if (parent.left == node) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+        }
+        if (color == BLACK) {
+            removeFixUp(child, parent);
+        }
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+    }
+
+    /**
+     * 删除修正，各情形同{@link RBTree}
+     *
+     * @param node   待修正的节点，可能为null
+     * @param parent node的父节点
+     */
+    private void removeFixUp(Node<K, V> node, Node<K, V> parent) {
+        while (isBlack(node) && node != root) {
+            if (parent.left == node) {
+                Node<K, V> other = parent.right;
+                // Case 1: 兄弟是红色的
+                if (isRed(other)) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    leftRotate(parent);
+                    other = parent.right;
+                }
+                if (isBlack(other.left) && isBlack(other.right)) {
+                    // Case 2: 兄弟是黑色，且兄弟的两个孩子也都是黑色的
+                    setColor(other, RED);
+                    node = parent;
+                    parent = parentOf(node);
+                } else {
+                    // Case 3: 兄弟是黑色的，兄弟的左孩子是红色，右孩子为黑色
+                    if (isBlack(other.right)) {
+                        setColor(other.left, BLACK);
+                        setColor(other, RED);
+                        rightRotate(other);
+                        other = parent.right;
+                    }
+                    // Case 4: 兄弟是黑色的，兄弟的右孩子是红色的
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(other.right, BLACK);
+                    leftRotate(parent);
+                    node = root;
+                    break;
+                }
+            } else {
+                Node<K, V> other = parent.left;
+                if (isRed(other)) {
+                    setColor(other, BLACK);
+                    setColor(parent, RED);
+                    rightRotate(parent);
+                    other = parent.left;
+                }
+                if (isBlack(other.left) && isBlack(other.right)) {
+                    setColor(other, RED);
+                    node = parent;
+                    parent = parentOf(node);
+                } else {
+                    if (isBlack(other.left)) {
+                        setColor(other.right, BLACK);
+                        setColor(other, RED);
+                        leftRotate(other);
+                        other = parent.left;
+                    }
+                    setColor(other, colorOf(parent));
+                    setColor(parent, BLACK);
+                    setColor(other.left, BLACK);
+                    rightRotate(parent);
+                    node = root;
+                    break;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    /**
+     * 检查红黑树的性质：根为黑色，红色节点的孩子为黑色，每条路径上的黑色节点数相同，中序有序，父指针与size正确
+     *
+     * @return 是否满足
+     */
+    boolean checkInvariants() {
+        if (isRed(root) || (root != null && root.parent != null)) {
+            return false;
+        }
+        int[] count = new int[1];
+        return blackHeight(root, count) >= 0 && count[0] == size;
+    }
+
+    private int blackHeight(Node<K, V> node, int[] count) {
+        if (node == null) {
+            return 0;
+        }
+        count[0]++;
+        if (node.left != null && (node.left.parent != node || compare(node.left.key, node.key) >= 0)) {
+            return -1;
+        }
+        if (node.right != null && (node.right.parent != node || compare(node.right.key, node.key) <= 0)) {
+            return -1;
+        }
+        if (isRed(node) && (isRed(node.left) || isRed(node.right))) {
+            return -1;
+        }
+        int left = blackHeight(node.left, count);
+        int right = blackHeight(node.right, count);
+        if (left < 0 || left != right) {
+            return -1;
+        }
+        return left + (isBlack(node) ? 1 : 0);
+    }
+
+    /**
+     * 树节点，也是entrySet()迭代返回的键值对，setValue直接修改映射
+     */
+    static final class Node<K, V> implements Map.Entry<K, V> {
+        final K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+        Node<K, V> parent;
+        boolean color = RED;
+
+        Node(K key, V value, Node<K, V> parent) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 从first开始按升序或降序遍历，遇到range之外的节点即结束
+     */
+    private static final class NodeIterator<K, V, T> implements Iterator<T> {
+        private final RBTreeMap<K, V> map;
+        private final RangeView<K, V> range;
+        private final boolean descending;
+        private final Function<Node<K, V>, T> mapper;
+        private Node<K, V> next;
+        private Node<K, V> lastReturned;
+        private int expectedModCount;
+
+        /**
+         * @param range 为null时不限范围
+         */
+        NodeIterator(RBTreeMap<K, V> map, Node<K, V> first, RangeView<K, V> range, boolean descending,
+                Function<Node<K, V>, T> mapper) {
+            this.map = map;
+            this.range = range;
+            this.descending = descending;
+            this.mapper = mapper;
+            this.next = first;
+            this.expectedModCount = map.modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            Node<K, V> node = next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            if (map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<K, V> following = descending ? predecessor(node) : successor(node);
+            next = following != null && (range == null || range.locate(following.key) == 0) ? following : null;
+            lastReturned = node;
+            return mapper.apply(node);
+        }
+
+        /**
+         * 删除lastReturned不改变其他节点的身份，next仍然有效
+         */
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            map.deleteNode(lastReturned);
+            expectedModCount = map.modCount;
+            lastReturned = null;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new NodeIterator<>(RBTreeMap.this, getFirstNode(), null, false, node -> node);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Node<K, V> node = getNode(entry.getKey());
+            return node != null && Objects.equals(node.value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            deleteNode(getNode(((Map.Entry<?, ?>) o).getKey()));
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            RBTreeMap.this.clear();
+        }
+    }
+
+    /**
+     * 范围视图的一端：端点的键以及端点本身是否属于视图
+     */
+    private static final class Bound<K> {
+        final K key;
+        final boolean inclusive;
+
+        Bound(K key, boolean inclusive) {
+            this.key = key;
+            this.inclusive = inclusive;
+        }
+    }
+
+    /**
+     * 检查端点的类型与null后创建端点
+     */
+    private Bound<K> bound(K key, boolean inclusive) {
+        compare(key, key);
+        return new Bound<>(key, inclusive);
+    }
+
+    /**
+     * 子映射与逆序映射视图：low、high为按原映射顺序的下界与上界，为null时该侧不设界。
+     * 所有范围判断都归结到{@link #locate(Object)}，查找先用原映射的ceiling/higher/floor/lower找到最近的节点，再检查它是否落在范围内；
+     * descending为true时视图中的"向前"对应原映射中的"向后"
+     */
+    private static final class RangeView<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+        private final RBTreeMap<K, V> map;
+        private final Bound<K> low;
+        private final Bound<K> high;
+        private final boolean descending;
+
+        RangeView(RBTreeMap<K, V> map, Bound<K> low, Bound<K> high, boolean descending) {
+            this.map = map;
+            this.low = low;
+            this.high = high;
+            this.descending = descending;
+        }
+
+        /**
+         * key相对于视图范围的位置（按原映射的顺序）：负数表示在下界之外，正数表示在上界之外，0表示在范围内
+         */
+        int locate(Object key) {
+            if (low != null) {
+                int cmp = map.compare(key, low.key);
+                if (cmp < 0 || (cmp == 0 && !low.inclusive)) {
+                    return -1;
+                }
+            }
+            if (high != null) {
+                int cmp = map.compare(key, high.key);
+                if (cmp > 0 || (cmp == 0 && !high.inclusive)) {
+                    return 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * 在原映射中从key出发向上（upward为true）或向下查找最近的节点，inclusive表示键等于key的节点也算，不考虑范围
+         */
+        private Node<K, V> search(Object key, boolean upward, boolean inclusive) {
+            if (upward) {
+                return inclusive ? map.getCeilingNode(key) : map.getHigherNode(key);
+            }
+            return inclusive ? map.getFloorNode(key) : map.getLowerNode(key);
+        }
+
+        private Node<K, V> inRangeOrNull(Node<K, V> node) {
+            return node != null && locate(node.key) == 0 ? node : null;
+        }
+
+        /**
+         * 范围内按原映射顺序最小（lowest为true）或最大的节点
+         */
+        private Node<K, V> edge(boolean lowest) {
+            Bound<K> bound = lowest ? low : high;
+            if (bound == null) {
+                return inRangeOrNull(lowest ? map.getFirstNode() : map.getLastNode());
+            }
+            return inRangeOrNull(search(bound.key, lowest, bound.inclusive));
+        }
+
+        /**
+         * 范围内从key出发向上或向下最近的节点；key在出发方向的背面超出范围时，结果为范围在该方向上的第一个节点
+         */
+        private Node<K, V> nearest(Object key, boolean upward, boolean inclusive) {
+            int side = locate(key);
+            if (upward ? side < 0 : side > 0) {
+                return edge(upward);
+            }
+            return inRangeOrNull(search(key, upward, inclusive));
+        }
+
+        // 以下按视图的顺序
+
+        private Node<K, V> first() {
+            return edge(!descending);
+        }
+
+        private Node<K, V> last() {
+            return edge(descending);
+        }
+
+        private Node<K, V> ceiling(Object key) {
+            return nearest(key, !descending, true);
+        }
+
+        private Node<K, V> higher(Object key) {
+            return nearest(key, !descending, false);
+        }
+
+        private Node<K, V> floor(Object key) {
+            return nearest(key, descending, true);
+        }
+
+        private Node<K, V> lower(Object key) {
+            return nearest(key, descending, false);
+        }
+
+        /**
+         * 新视图的端点须在当前范围内；不包含端点的新端点也可以等于当前的端点
+         */
+        private Bound<K> narrowTo(K key, boolean inclusive, String name) {
+            int side = locate(key);
+            if (side != 0 && (inclusive || map.compare(key, (side < 0 ? low : high).key) != 0)) {
+                throw new IllegalArgumentException(name + " out of range");
+            }
+            return new Bound<>(key, inclusive);
+        }
+
+        /**
+         * 以视图顺序的起点from、终点to（为null时沿用当前端点）创建更小的视图
+         */
+        private NavigableMap<K, V> view(Bound<K> from, Bound<K> to) {
+            Bound<K> newLow = descending ? to : from;
+            Bound<K> newHigh = descending ? from : to;
+            return new RangeView<>(map, newLow != null ? newLow : low, newHigh != null ? newHigh : high, descending);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return locate(key) == 0 && map.containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return locate(key) == 0 ? map.get(key) : null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (locate(key) != 0) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return map.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return locate(key) == 0 ? map.remove(key) : null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return first() == null;
+        }
+
+        @Override
+        public int size() {
+            int count = 0;
+            for (Iterator<Entry<K, V>> iterator = entrySet().iterator(); iterator.hasNext(); iterator.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new NodeIterator<>(map, first(), RangeView.this, descending, node -> node);
+                }
+
+                @Override
+                public int size() {
+                    return RangeView.this.size();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return RangeView.this.isEmpty();
+                }
+            };
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder(map.comparator) : map.comparator;
+        }
+
+        @Override
+        public Entry<K, V> lowerEntry(K key) {
+            return snapshot(lower(key));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOf(lower(key));
+        }
+
+        @Override
+        public Entry<K, V> floorEntry(K key) {
+            return snapshot(floor(key));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOf(floor(key));
+        }
+
+        @Override
+        public Entry<K, V> ceilingEntry(K key) {
+            return snapshot(ceiling(key));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOf(ceiling(key));
+        }
+
+        @Override
+        public Entry<K, V> higherEntry(K key) {
+            return snapshot(higher(key));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOf(higher(key));
+        }
+
+        @Override
+        public Entry<K, V> firstEntry() {
+            return snapshot(first());
+        }
+
+        @Override
+        public Entry<K, V> lastEntry() {
+            return snapshot(last());
+        }
+
+        @Override
+        public K firstKey() {
+            return requireKey(first());
+        }
+
+        @Override
+        public K lastKey() {
+            return requireKey(last());
+        }
+
+        @Override
+        public Entry<K, V> pollFirstEntry() {
+            return map.removeAndSnapshot(first());
+        }
+
+        @Override
+        public Entry<K, V> pollLastEntry() {
+            return map.removeAndSnapshot(last());
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new RangeView<>(map, low, high, !descending);
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            Bound<K> from = narrowTo(fromKey, fromInclusive, "fromKey");
+            Bound<K> to = narrowTo(toKey, toInclusive, "toKey");
+            if ((descending ? map.compare(toKey, fromKey) : map.compare(fromKey, toKey)) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return view(from, to);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            return view(null, narrowTo(toKey, inclusive, "toKey"));
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            return view(narrowTo(fromKey, inclusive, "fromKey"), null);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+    }
+
+    /**
+     * 键集合视图，所有操作委托给所属的映射
+     */
+    private static final class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+        private final NavigableMap<K, ?> map;
+
+        KeySet(NavigableMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            Iterator<? extends Entry<K, ?>> entries = map.entrySet().iterator();
+            return new Iterator<K>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+            map.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public K lower(K key) {
+            return map.lowerKey(key);
+        }
+
+        @Override
+        public K floor(K key) {
+            return map.floorKey(key);
+        }
+
+        @Override
+        public K ceiling(K key) {
+            return map.ceilingKey(key);
+        }
+
+        @Override
+        public K higher(K key) {
+            return map.higherKey(key);
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K pollFirst() {
+            Entry<K, ?> entry = map.pollFirstEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public K pollLast() {
+            Entry<K, ?> entry = map.pollLastEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return new KeySet<>(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Java 语言: 红黑树映射检测
+ *
+ * 对RBTreeMap与IntRBTreeMap随机插入、删除，每一步与java.util.TreeMap的结果比较，并检查红黑树的性质；
+ * RBTreeMap另外检测子映射、逆序映射、键集合等视图以及迭代中删除。
+ */
+public class RBTreeMapTest {
+
+    private static final int OPERATIONS = 200_000;
+    private static final int KEY_RANGE = 2_000;
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        checkRBTreeMap(null);
+        checkRBTreeMap(Comparator.reverseOrder());
+        checkIntRBTreeMap();
+        System.out.printf("== %s\n", failures == 0 ? "全部通过" : "失败" + failures + "项");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void checkRBTreeMap(Comparator<Integer> comparator) {
+        String name = comparator == null ? "RBTreeMap" : "RBTreeMap(逆序)";
+        Random random = new Random(20131107);
+        RBTreeMap<Integer, Integer> map = new RBTreeMap<>(comparator);
+        TreeMap<Integer, Integer> expected = new TreeMap<>(comparator);
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEY_RANGE);
+            if (random.nextInt(3) == 0) {
+                check(name + ".remove", Objects.equals(expected.remove(key), map.remove(key)));
+            } else {
+                check(name + ".put", Objects.equals(expected.put(key, i), map.put(key, i)));
+            }
+            if (i % 1000 == 0) {
+                check(name + "红黑树性质", map.checkInvariants());
+                check(name + ".equals", expected.equals(map) && map.equals(expected));
+            }
+            check(name + ".get", Objects.equals(expected.get(key), map.get(key)));
+            check(name + ".floorKey", Objects.equals(expected.floorKey(key), map.floorKey(key)));
+            check(name + ".ceilingKey", Objects.equals(expected.ceilingKey(key), map.ceilingKey(key)));
+            check(name + ".lowerEntry", Objects.equals(expected.lowerEntry(key), map.lowerEntry(key)));
+            check(name + ".higherEntry", Objects.equals(expected.higherEntry(key), map.higherEntry(key)));
+        }
+        check(name + ".size", expected.size() == map.size());
+
+        // 视图
+        for (int i = 0; i < 200; i++) {
+            int a = random.nextInt(KEY_RANGE);
+            int b = random.nextInt(KEY_RANGE);
+            int from = expected.comparator() == null ? Math.min(a, b) : Math.max(a, b);
+            int to = expected.comparator() == null ? Math.max(a, b) : Math.min(a, b);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            int key = random.nextInt(KEY_RANGE);
+            int mid = (from + to) / 2;
+            checkView(name + ".subMap", expected.subMap(from, fromInclusive, to, toInclusive),
+                    map.subMap(from, fromInclusive, to, toInclusive), key);
+            checkView(name + ".headMap", expected.headMap(to, toInclusive), map.headMap(to, toInclusive), key);
+            checkView(name + ".tailMap", expected.tailMap(from, fromInclusive), map.tailMap(from, fromInclusive),
+                    key);
+            checkView(name + ".descendingMap", expected.descendingMap(), map.descendingMap(), key);
+            checkView(name + ".descendingMap.subMap",
+                    expected.descendingMap().subMap(to, toInclusive, from, fromInclusive).headMap(mid, false),
+                    map.descendingMap().subMap(to, toInclusive, from, fromInclusive).headMap(mid, false), key);
+            List<Integer> expectedKeys = new ArrayList<>(
+                    expected.navigableKeySet().subSet(from, true, to, false).descendingSet());
+            check(name + ".keySet.subSet", expectedKeys
+                    .equals(new ArrayList<>(map.navigableKeySet().subSet(from, true, to, false).descendingSet())));
+        }
+
+        // 通过视图修改
+        int a = random.nextInt(KEY_RANGE);
+        int b = random.nextInt(KEY_RANGE);
+        int from = expected.comparator() == null ? Math.min(a, b) : Math.max(a, b);
+        int to = expected.comparator() == null ? Math.max(a, b) : Math.min(a, b);
+        expected.subMap(from, to).clear();
+        map.subMap(from, to).clear();
+        check(name + ".subMap.clear", expected.equals(map) && map.checkInvariants());
+        check(name + ".pollFirstEntry", Objects.equals(expected.pollFirstEntry(), map.pollFirstEntry()));
+        check(name + ".descendingMap.pollFirstEntry",
+                Objects.equals(expected.descendingMap().pollFirstEntry(), map.descendingMap().pollFirstEntry()));
+        boolean rejected;
+        try {
+            map.headMap(to, false).put(to, 0);
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        check(name + ".headMap.put越界", rejected);
+
+        // 迭代中删除
+        Iterator<Map.Entry<Integer, Integer>> iterator = map.entrySet().iterator();
+        for (Iterator<Map.Entry<Integer, Integer>> e = expected.entrySet().iterator(); e.hasNext();) {
+            Map.Entry<Integer, Integer> entry = e.next();
+            check(name + ".iterator", iterator.hasNext() && entry.equals(iterator.next()));
+            if (entry.getKey() % 3 != 0) {
+                e.remove();
+                iterator.remove();
+            }
+        }
+        check(name + ".iterator.remove", !iterator.hasNext() && expected.equals(map) && map.checkInvariants());
+        for (Iterator<Integer> keys = map.descendingKeySet().iterator(); keys.hasNext();) {
+            keys.next();
+            keys.remove();
+        }
+        check(name + ".descendingKeySet.remove", map.isEmpty() && map.checkInvariants());
+    }
+
+    private static void checkView(String name, NavigableMap<Integer, Integer> expected,
+            NavigableMap<Integer, Integer> actual, int key) {
+        check(name + ".entries", new ArrayList<>(expected.entrySet()).equals(new ArrayList<>(actual.entrySet())));
+        check(name + ".size", expected.size() == actual.size() && expected.isEmpty() == actual.isEmpty());
+        check(name + ".containsKey", expected.containsKey(key) == actual.containsKey(key));
+        check(name + ".navigation", Objects.equals(expected.floorKey(key), actual.floorKey(key))
+                && Objects.equals(expected.lowerKey(key), actual.lowerKey(key))
+                && Objects.equals(expected.ceilingKey(key), actual.ceilingKey(key))
+                && Objects.equals(expected.higherKey(key), actual.higherKey(key))
+                && Objects.equals(expected.firstEntry(), actual.firstEntry())
+                && Objects.equals(expected.lastEntry(), actual.lastEntry()));
+        List<Integer> expectedKeys = new ArrayList<>(expected.descendingKeySet());
+        check(name + ".descendingKeySet", expectedKeys.equals(new ArrayList<>(actual.descendingKeySet())));
+    }
+
+    private static void checkIntRBTreeMap() {
+        Random random = new Random(20150612);
+        IntRBTreeMap<Integer> map = new IntRBTreeMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+            if (random.nextInt(3) == 0) {
+                check("IntRBTreeMap.remove", Objects.equals(expected.remove(key), map.remove(key)));
+            } else {
+                check("IntRBTreeMap.put", Objects.equals(expected.put(key, i), map.put(key, i)));
+            }
+            if (i % 1000 == 0) {
+                check("IntRBTreeMap红黑树性质", map.checkInvariants());
+            }
+            check("IntRBTreeMap.get", Objects.equals(expected.get(key), map.get(key)));
+            check("IntRBTreeMap.floorEntry", same(expected.floorEntry(key), map.floorEntry(key)));
+            check("IntRBTreeMap.ceilingEntry", same(expected.ceilingEntry(key), map.ceilingEntry(key)));
+            check("IntRBTreeMap.lowerEntry", same(expected.lowerEntry(key), map.lowerEntry(key)));
+            check("IntRBTreeMap.higherEntry", same(expected.higherEntry(key), map.higherEntry(key)));
+        }
+        check("IntRBTreeMap.size", expected.size() == map.size());
+        check("IntRBTreeMap.firstKey", expected.firstKey() == map.firstKey() && expected.lastKey() == map.lastKey());
+
+        List<String> actual = new ArrayList<>();
+        map.forEach((key, value) -> actual.add(key + "=" + value));
+        List<String> entries = new ArrayList<>();
+        expected.forEach((key, value) -> entries.add(key + "=" + value));
+        check("IntRBTreeMap.forEach", entries.equals(actual));
+
+        Iterator<IntRBTreeMap.Entry<Integer>> iterator = map.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() % 2 != 0) {
+                iterator.remove();
+            }
+        }
+        expected.keySet().removeIf(key -> key % 2 != 0);
+        check("IntRBTreeMap.iterator.remove", expected.size() == map.size() && map.checkInvariants()
+                && expected.toString().equals(map.toString()));
+        map.clear();
+        check("IntRBTreeMap.clear", map.isEmpty() && map.firstEntry() == null);
+    }
+
+    private static boolean same(Map.Entry<Integer, Integer> expected, IntRBTreeMap.Entry<Integer> actual) {
+        return expected == null ? actual == null
+                : actual != null && expected.getKey() == actual.getKey()
+                        && expected.getValue().equals(actual.getValue());
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            failures++;
+            if (failures <= 20) {
+                System.out.printf("== %s 失败\n", name);
+            }
+        }
+    }
+}
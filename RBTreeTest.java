@@ -1,4 +1,12 @@
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
 /**
  * Java 语言: 二叉查找树
  *
@@ -46,6 +54,10 @@ public class RBTreeTest {
         tree.print();
         System.out.printf("\n");
 
+        System.out.printf("== 中位数: %d\n", tree.select(tree.size() / 2));
+        System.out.printf("== 小于55的个数: %d\n", tree.rank(55));
+        System.out.printf("== [20, 60]中的个数: %d\n", tree.countInRange(20, 60));
+
         // 设置mDebugDelete=true,测试"删除函数"
         if (mDebugDelete) {
             for (i = 0; i < ilen; i++) {
@@ -60,5 +72,143 @@ public class RBTreeTest {
 
         // 销毁二叉树
         tree.clear();
+
+        checkOrderStatistics();
+        checkNavigation();
+    }
+
+    /**
+     * 随机插入、删除（含重复键），与有序列表比较rank、select与countInRange
+     */
+    private static void checkOrderStatistics() {
+        Random random = new Random(20131107);
+        RBTree tree = new RBTree();
+        List<Integer> expected = new ArrayList<>();
+        int failures = 0;
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                if (expected.remove(Integer.valueOf(key)))
+                    tree.remove(key);
+            } else {
+                int index = Collections.binarySearch(expected, key);
+                expected.add(index < 0 ? -index - 1 : index, key);
+                tree.insert(key);
+            }
+
+            int lo = random.nextInt(1000), hi = random.nextInt(1000);
+            int rank = lowerBound(expected, key);
+            int count = lo > hi ? 0 : lowerBound(expected, hi + 1) - lowerBound(expected, lo);
+            if (tree.size() != expected.size() || tree.rank(key) != rank || tree.countInRange(lo, hi) != count)
+                failures++;
+            if (!expected.isEmpty()) {
+                int k = random.nextInt(expected.size());
+                if (tree.select(k) != expected.get(k))
+                    failures++;
+            }
+        }
+
+        boolean rejected;
+        try {
+            tree.select(tree.size());
+            rejected = false;
+        } catch (IndexOutOfBoundsException e) {
+            rejected = true;
+        }
+        if (!rejected || tree.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE) != tree.size())
+            failures++;
+        System.out.printf("== 顺序统计: %s\n", failures == 0 ? "通过" : "失败" + failures + "项");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * 与有序列表比较floor/ceiling/higher/lower、升降序迭代器、子集视图与并行流
+     */
+    private static void checkNavigation() {
+        Random random = new Random(20131108);
+        RBTree tree = new RBTree();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(50000);
+            tree.insert(key);
+            expected.add(key);
+        }
+        Collections.sort(expected);
+        int failures = 0;
+
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(50002) - 1;
+            int lower = lowerBound(expected, key), upper = lowerBound(expected, key + 1);
+            if (!same(tree.floor(key), upper > 0 ? expected.get(upper - 1) : null)
+                    || !same(tree.ceiling(key), lower < expected.size() ? expected.get(lower) : null)
+                    || !same(tree.higher(key), upper < expected.size() ? expected.get(upper) : null)
+                    || !same(tree.lower(key), lower > 0 ? expected.get(lower - 1) : null))
+                failures++;
+
+            int lo = random.nextInt(50000), hi = lo + random.nextInt(200) - 20;
+            List<Integer> range = lo > hi ? Collections.emptyList()
+                    : expected.subList(lowerBound(expected, lo), lowerBound(expected, hi + 1));
+            RBTree.SubSet subSet = tree.subSet(lo, hi);
+            List<Integer> descending = new ArrayList<>(range);
+            Collections.reverse(descending);
+            if (subSet.size() != range.size() || subSet.isEmpty() != range.isEmpty()
+                    || !range.equals(toList(subSet.iterator()))
+                    || !descending.equals(toList(subSet.descendingIterator()))
+                    || !range.equals(toList(subSet.stream().parallel().iterator())))
+                failures++;
+        }
+
+        List<Integer> descending = new ArrayList<>(expected);
+        Collections.reverse(descending);
+        if (!expected.equals(toList(tree.iterator())) || !descending.equals(toList(tree.descendingIterator())))
+            failures++;
+        int[] sorted = expected.stream().mapToInt(Integer::intValue).toArray();
+        if (!Arrays.equals(sorted, tree.stream().parallel().toArray())
+                || tree.stream().parallel().asLongStream().sum() != expected.stream().mapToLong(k -> k).sum())
+            failures++;
+
+        // 迭代中修改
+        boolean rejected;
+        try {
+            PrimitiveIterator.OfInt iterator = tree.iterator();
+            iterator.nextInt();
+            tree.insert(0);
+            iterator.nextInt();
+            rejected = false;
+        } catch (ConcurrentModificationException e) {
+            rejected = true;
+        }
+        if (!rejected)
+            failures++;
+        System.out.printf("== 有序遍历与范围查询: %s\n", failures == 0 ? "通过" : "失败" + failures + "项");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static boolean same(RBTree.RBTNode node, Integer key) {
+        return node == null ? key == null : key != null && node.getKey() == key;
+    }
+
+    private static List<Integer> toList(PrimitiveIterator.OfInt iterator) {
+        List<Integer> list = new ArrayList<>();
+        while (iterator.hasNext())
+            list.add(iterator.nextInt());
+        return list;
+    }
+
+    /**
+     * 有序列表中小于key的元素个数
+     */
+    private static int lowerBound(List<Integer> list, int key) {
+        int low = 0, high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.get(mid) < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
     }
 }
\ No newline at end of file
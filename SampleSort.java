@@ -0,0 +1,212 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * 并行样本排序（sample sort） - 先按样本把数组划分为若干值域互不相交的桶，再并行排序各个桶，第一次划分本身也是并行的。
+ *
+ * 1. 随机抽取(桶数 × {@link #OVERSAMPLING})个样本排序，等距取出分隔值（过采样使各桶大小接近）；
+ * 2. 把数组分成若干块，各块并行地为每个元素二分查找所属的桶，记下桶号并统计每块各桶的元素个数；
+ * 3. 按桶、块的顺序求前缀和，各块并行地把元素分配到辅助数组中各自的位置（无需同步）；
+ * 4. 各桶并行排序：较小的桶用{@link Sort#quickSort(int[], int, int)}的算法，较大的桶用LSD基数排序，结果落回原数组。
+ *
+ * 每个分隔值额外对应一个“等值桶”，只存放与分隔值相等的元素，这样的桶不需要排序，
+ * 大量重复元素集中在少数取值上时也不会产生一个特别大的桶。
+ *
+ * 额外空间：一个与原数组等长的辅助数组与每个元素一字节的桶号
+ */
+final class SampleSort {
+
+    /**
+     * 长度小于该值时直接顺序排序
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    /**
+     * 每个桶对应的样本数
+     */
+    private static final int OVERSAMPLING = 32;
+
+    /**
+     * 分隔值个数上限，桶号（含等值桶）不超过255，可存放在一个字节中
+     */
+    private static final int MAX_SPLITTERS = 127;
+
+    /**
+     * 桶的长度不小于该值时用基数排序
+     */
+    private static final int RADIX_THRESHOLD = 1 << 10;
+
+    private static final int RADIX = 256;
+
+    /**
+     * 分类与分配阶段每块至少包含的元素个数
+     */
+    private static final int MIN_BLOCK_SIZE = 1 << 14;
+
+    private SampleSort() {
+    }
+
+    /**
+     * 在pool中对nums升序排序
+     */
+    static void sort(int[] nums, ForkJoinPool pool) {
+        int length = nums.length;
+        int parallelism = pool.getParallelism();
+        if (length < SEQUENTIAL_THRESHOLD || parallelism <= 1) {
+            Sort.sortRange(nums, 0, length - 1);
+            return;
+        }
+
+        // 每个线程约分得四个桶，桶之间大小的差异由工作窃取平衡
+        long start = SortMetrics.now();
+        int[] splitters = chooseSplitters(nums, Math.min(MAX_SPLITTERS, 4 * parallelism - 1));
+        int bucketCount = 2 * splitters.length + 1;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("sample", start);
+            start = SortMetrics.now();
+        }
+
+        int blockCount = Math.max(1, Math.min(4 * parallelism, length / MIN_BLOCK_SIZE));
+        byte[] buckets = new byte[length];
+        int[][] counts = new int[blockCount][bucketCount];
+        pool.invoke(new ForEach(0, blockCount, block -> {
+            int[] count = counts[block];
+            for (int i = blockBegin(block, blockCount, length), end = blockBegin(block + 1, blockCount,
+                    length); i < end; i++) {
+                int bucket = bucketOf(splitters, nums[i]);
+                buckets[i] = (byte) bucket;
+                count[bucket]++;
+            }
+        }));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("classify", start);
+            start = SortMetrics.now();
+        }
+
+        // 桶b在块t中的元素从offsets[t][b]开始存放，bucketBegin[b]为桶b的起始位置
+        int[][] offsets = new int[blockCount][bucketCount];
+        int[] bucketBegin = new int[bucketCount + 1];
+        int offset = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketBegin[bucket] = offset;
+            for (int block = 0; block < blockCount; block++) {
+                offsets[block][bucket] = offset;
+                offset += counts[block][bucket];
+            }
+        }
+        bucketBegin[bucketCount] = length;
+
+        int[] scratch = new int[length];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) length * (Integer.BYTES + 1));
+        }
+        pool.invoke(new ForEach(0, blockCount, block -> {
+            int[] next = offsets[block];
+            for (int i = blockBegin(block, blockCount, length), end = blockBegin(block + 1, blockCount,
+                    length); i < end; i++) {
+                scratch[next[buckets[i] & 0xff]++] = nums[i];
+            }
+        }));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("scatter", start);
+            start = SortMetrics.now();
+        }
+
+        // 奇数号为等值桶，无需排序；较大的桶用基数排序，原数组中对应的区间正好空出来作为辅助空间
+        pool.invoke(new ForEach(0, bucketCount, bucket -> {
+            int begin = bucketBegin[bucket];
+            int end = bucketBegin[bucket + 1];
+            int[] sorted = scratch;
+            if ((bucket & 1) == 1) {
+                // 等值桶
+            } else if (end - begin < RADIX_THRESHOLD) {
+                Sort.sortRange(scratch, begin, end - 1);
+            } else {
+                // 同一个桶中的元素高位字节往往相同，这些字节上的分配会被跳过
+                sorted = Sort.radixSortRange(scratch, begin, end, nums, begin, new int[4][RADIX], new int[RADIX]);
+            }
+            if (sorted != nums) {
+                System.arraycopy(sorted, begin, nums, begin, end - begin);
+            }
+        }));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("sortBuckets", start);
+        }
+    }
+
+    /**
+     * 随机抽取(count + 1) × OVERSAMPLING个样本并排序，每OVERSAMPLING个取一个分隔值，去掉重复值后升序返回
+     */
+    private static int[] chooseSplitters(int[] nums, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] samples = new int[(count + 1) * OVERSAMPLING];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = nums[random.nextInt(nums.length)];
+        }
+        Sort.sortRange(samples, 0, samples.length - 1);
+
+        int[] splitters = new int[count];
+        int distinct = 0;
+        for (int i = 1; i <= count; i++) {
+            int splitter = samples[i * OVERSAMPLING - 1];
+            if (distinct == 0 || splitters[distinct - 1] != splitter) {
+                splitters[distinct++] = splitter;
+            }
+        }
+        return Arrays.copyOf(splitters, distinct);
+    }
+
+    /**
+     * 返回num所属的桶：小于splitters[i]且大于splitters[i - 1]时为2i，等于splitters[i]时为2i + 1
+     */
+    private static int bucketOf(int[] splitters, int num) {
+        int low = 0;
+        int high = splitters.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (splitters[mid] < num) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < splitters.length && splitters[low] == num ? 2 * low + 1 : 2 * low;
+    }
+
+    /**
+     * 把[0, length)均分为blockCount块时第block块的起始位置
+     */
+    private static int blockBegin(int block, int blockCount, int length) {
+        return (int) ((long) block * length / blockCount);
+    }
+
+    /**
+     * 对[begin, end)中的每个下标并行执行body，二分拆分任务
+     */
+    private static final class ForEach extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int begin;
+        private final int end;
+        private final IntConsumer body;
+
+        ForEach(int begin, int end, IntConsumer body) {
+            this.begin = begin;
+            this.end = end;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin == 1) {
+                body.accept(begin);
+                return;
+            }
+            int mid = (begin + end) >>> 1;
+            invokeAll(new ForEach(begin, mid, body), new ForEach(mid, end, body));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 分段排序 - 一次调用对大量小数组排序。所有数组首尾相接存放在values中，第i段为values[offsets[i], offsets[i + 1])。
+ *
+ * 逐段按长度选择算法：两个元素直接比较交换；不超过{@link SortingNetwork#MAX_SIZE}个元素用排序网络或插入排序；
+ * 更长的段用快速排序；不短于{@link #RADIX_THRESHOLD}的段用LSD基数排序。
+ * 基数排序的辅助数组、直方图与分配位置在同一批段之间共用，辅助数组按需增长，不为每一段单独分配。
+ * 并行时按元素个数把段均分给ForkJoinPool中的任务，每个任务顺序处理一批相邻的段并持有自己的辅助数组。
+ */
+final class SegmentedSort {
+
+    /**
+     * 段长度不小于该值时用基数排序
+     */
+    private static final int RADIX_THRESHOLD = 1 << 12;
+
+    /**
+     * 并行时每个任务至少处理的元素个数
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int RADIX = 256;
+
+    private SegmentedSort() {
+    }
+
+    /**
+     * 对values中的每一段升序排序
+     *
+     * @param values   首尾相接的各段数据
+     * @param offsets  各段的起始位置，最后一个元素为最后一段的结束位置，需单调不减
+     * @param pool     并行执行的线程池，为null时顺序执行
+     */
+    static void sort(int[] values, int[] offsets, ForkJoinPool pool) {
+        checkOffsets(values.length, offsets);
+        int segments = offsets.length - 1;
+        if (segments <= 0) {
+            return;
+        }
+        if (pool != null && pool.getParallelism() > 1 && offsets[segments] - offsets[0] > PARALLEL_THRESHOLD) {
+            pool.invoke(new SegmentTask(values, offsets, 0, segments));
+        } else {
+            new Kernel().sort(values, offsets, 0, segments);
+        }
+    }
+
+    private static void checkOffsets(int length, int[] offsets) {
+        if (offsets.length == 0) {
+            return;
+        }
+        if (offsets[0] < 0) {
+            throw new ArrayIndexOutOfBoundsException(offsets[0]);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i - 1] > offsets[i]) {
+                throw new IllegalArgumentException(
+                        "offsets[" + (i - 1) + "](" + offsets[i - 1] + ") > offsets[" + i + "](" + offsets[i] + ")");
+            }
+        }
+        if (offsets[offsets.length - 1] > length) {
+            throw new ArrayIndexOutOfBoundsException(offsets[offsets.length - 1]);
+        }
+    }
+
+    /**
+     * 顺序处理若干段，基数排序用到的辅助数组、直方图与分配位置在各段之间共用
+     */
+    private static final class Kernel {
+        private int[] scratch = new int[0];
+        private final int[][] counts = new int[4][RADIX];
+        private final int[] digitOffsets = new int[RADIX];
+
+        /**
+         * 对第first段到第last段（不包含）排序
+         */
+        void sort(int[] values, int[] offsets, int first, int last) {
+            for (int segment = first; segment < last; segment++) {
+                int begin = offsets[segment];
+                int end = offsets[segment + 1];
+                int length = end - begin;
+                if (length < 2) {
+                    continue;
+                }
+                if (length == 2) {
+                    int a = values[begin];
+                    int b = values[begin + 1];
+                    values[begin] = Math.min(a, b);
+                    values[begin + 1] = Math.max(a, b);
+                } else if (length <= SortingNetwork.MAX_SIZE) {
+                    Sort.smallSort(values, begin, end - 1);
+                } else if (length < RADIX_THRESHOLD) {
+                    Sort.sortRange(values, begin, end - 1);
+                } else {
+                    radixSort(values, begin, end);
+                }
+            }
+        }
+
+        /**
+         * 对values[beginIndex, endIndex)做LSD基数排序，见{@link Sort#radixSortRange}
+         */
+        private void radixSort(int[] values, int beginIndex, int endIndex) {
+            int length = endIndex - beginIndex;
+            if (scratch.length < length) {
+                scratch = new int[Math.max(length, scratch.length * 2)];
+            }
+            int[] sorted = Sort.radixSortRange(values, beginIndex, endIndex, scratch, 0, counts, digitOffsets);
+            if (sorted != values) {
+                System.arraycopy(sorted, 0, values, beginIndex, length);
+            }
+        }
+    }
+
+    /**
+     * 并行任务：元素较多时在中间的段处拆成两半，否则顺序处理
+     */
+    private static final class SegmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int[] offsets;
+        private final int first;
+        private final int last;
+
+        SegmentTask(int[] values, int[] offsets, int first, int last) {
+            this.values = values;
+            this.offsets = offsets;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first < 2 || offsets[last] - offsets[first] <= PARALLEL_THRESHOLD) {
+                new Kernel().sort(values, offsets, first, last);
+                return;
+            }
+            // 找第一个起始位置不小于元素中点的段，使两半的元素个数大致相等
+            int middle = offsets[first] + (offsets[last] - offsets[first]) / 2;
+            int low = first + 1;
+            int high = last - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (offsets[mid] < middle) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            invokeAll(new SegmentTask(values, offsets, first, low), new SegmentTask(values, offsets, low, last));
+        }
+    }
+}
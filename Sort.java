@@ -1,8 +1,92 @@
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+public class Sort {
+    /**
+     * 归并排序中区间长度不超过该值时改用插入排序，可通过系统属性sort.mergeSortInsertionThreshold调整
+     */
+    private static final int MERGE_SORT_INSERTION_THRESHOLD = Math
+            .max(1, Integer.getInteger("sort.mergeSortInsertionThreshold", 32));
+
+    /**
+     * 并行归并排序默认的顺序阈值，区间长度不超过该值时不再拆分任务
+     */
+    private static final int PARALLEL_MERGE_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * 快速排序中区间长度不超过该值时改用插入排序，可通过系统属性sort.quickSortInsertionThreshold调整
+     */
+    private static final int QUICK_SORT_INSERTION_THRESHOLD = Math
+            .max(8, Integer.getInteger("sort.quickSortInsertionThreshold", 24));
+
+    /**
+     * 快速排序中区间长度达到该值时改用九数中值选取基准
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * 基数排序每趟处理一个字节，共256个桶
+     */
+    private static final int RADIX = 256;
+
+    /**
+     * 数组长度小于该值时基数排序改用快速排序
+     */
+    private static final int RADIX_SORT_THRESHOLD = 256;
+
+    /**
+     * 并行统计直方图时每个任务处理的最大区间长度
+     */
+    private static final int RADIX_HISTOGRAM_THRESHOLD = 1 << 16;
+
+    /**
+     * MSD基数排序中桶的长度小于该值时改用插入排序
+     */
+    private static final int RADIX_MSD_INSERTION_THRESHOLD = 64;
+
+    /**
+     * short、char数组长度达到该值时改用计数排序
+     */
+    private static final int COUNTING_SORT_THRESHOLD_SHORT_OR_CHAR = 512;
+
+    /**
+     * byte数组长度达到该值时改用计数排序
+     */
+    private static final int COUNTING_SORT_THRESHOLD_BYTE = 64;
+
+    /**
+     * sortAuto中长度不超过该值时直接插入排序
+     */
+    private static final int AUTO_INSERTION_THRESHOLD = 64;
+
+    /**
+     * sortAuto中用于估计不同取值个数的样本数
+     */
+    private static final int AUTO_SAMPLE_SIZE = 1024;
+
+    /**
+     * sortAuto中长度不小于该值时用基数排序
+     */
+    private static final int AUTO_RADIX_THRESHOLD = 1 << 12;
+
+    /**
+     * sortAuto中长度不小于该值且公共线程池有多个线程时并行排序
+     */
+    private static final int AUTO_PARALLEL_THRESHOLD = 1 << 20;
 
-class Sort {
     public static void main(String[] args) {
+        // 带参数时作为命令行排序工具
+        if (args.length > 0) {
+            SortCli.main(args);
+            return;
+        }
+
         //插入排序
         int[] nums1 = { 3, 44, 38, 5, 47, 15, 36, 26, 27, 2, 46, 4, 19, 50, 48 };
         insertionSort(nums1);
@@ -32,39 +116,111 @@ class Sort {
         int[] result = mergeSort(nums5);
         System.out.print("归并排序:");
         printNums(result);
+
+        //并行归并排序
+        int[] nums6 = { 3, 44, 38, 5, 47, 15, 36, 26, 27, 2, 46, 4, 19, 50, 48 };
+        parallelMergeSort(nums6, 4);
+        System.out.print("并行归并排序:");
+        printNums(nums6);
     }
 
     /**
      * 插入排序 - 数列前面部分看为有序，依次将后面的无序数列元素插入到前面的有序数列中，
-     * 初始状态有序数列仅有一个元素，即首元素。在将无序数列元素插入有序数列的 过程中，采用了逆序遍历有序数列，相较于顺序遍历会稍显繁琐，但当数列本身
-     * 已近排序状态效率会更高。 时间复杂度：O(N2) 稳定性：稳定
+     * 初始状态有序数列仅有一个元素，即首元素。插入位置由{@link #binaryInsertionSort(int[], int, int)}二分查找得到，
+     * 元素整体后移用System.arraycopy完成；待插入元素不小于有序部分末尾时直接跳过，数列本身已近排序状态时效率很高。
+     * 时间复杂度：O(N2) 稳定性：稳定
      * 
      * 希尔排序 - 在要排序的一组数中，根据某一增量分为若干子序列，并对子序列分别进行插入排序。
      * 然后逐渐将增量减小，并重复上述过程。直至增量为1,此时数据序列基本有序，最后进行插入排序。 （希尔排序不演示）
      * 
      * @param nums 要排序的数组
      */
-    private static void insertionSort(int[] nums) {
-        for (int i = 1; i < nums.length; i++) {
-            for (int j = i - 1; j >= 0; j--) {
-                if (nums[i] > nums[j]) {
-                    int temp = nums[i];
-                    for (int k = i; k > j + 1; k--) {
-                        nums[k] = nums[k - 1];
-                    }
-                    nums[j + 1] = temp;
-                    break;
-                } else if (j == 0) {
-                    int temp = nums[i];
-                    for (int k = i; k > j; k--) {
-                        nums[k] = nums[k - 1];
-                    }
-                    nums[j] = temp;
-                    break;
+    static void insertionSort(int[] nums) {
+        binaryInsertionSort(nums, 0, nums.length - 1);
+    }
+
+    /**
+     * 二分插入排序 - 对区间nums[beginIndex, endIndex]进行插入排序，二分查找插入位置，用System.arraycopy整体后移元素。
+     * 作为快速排序、归并排序等算法处理小区间的基础算法。
+     * 
+     * 时间复杂度：比较O(NlogN)，移动O(N2) 稳定性：稳定
+     * 
+     * @param nums       要排序的数组
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     */
+    public static void binaryInsertionSort(int[] nums, int beginIndex, int endIndex) {
+        binaryInsertionSort(nums, beginIndex, endIndex, beginIndex + 1);
+    }
+
+    /**
+     * 二分插入排序，要求nums[beginIndex, start)已有序，把nums[start, endIndex]依次插入
+     * 
+     * @param nums       要排序的数组
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     * @param start      第一个待插入元素的位置
+     */
+    static void binaryInsertionSort(int[] nums, int beginIndex, int endIndex, int start) {
+        long comparisons = 0;
+        long moves = 0;
+        for (int i = Math.max(start, beginIndex + 1); i <= endIndex; i++) {
+            int temp = nums[i];
+            if (SortMetrics.ENABLED) {
+                comparisons++;
+            }
+            if (nums[i - 1] <= temp) {
+                continue; // 已在正确位置
+            }
+            // 在nums[beginIndex, i - 1)中找第一个大于temp的位置，nums[i - 1]已知大于temp
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (SortMetrics.ENABLED) {
+                    comparisons++;
+                }
+                if (temp < nums[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
                 }
             }
+            System.arraycopy(nums, low, nums, low + 1, i - low);
+            nums[low] = temp;
+            if (SortMetrics.ENABLED) {
+                moves += i - low + 1;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(comparisons);
+            SortMetrics.moved(moves);
         }
+    }
 
+    /**
+     * 小区间排序，快速排序、归并排序处理小区间nums[beginIndex, endIndex]时调用。
+     * 先找出开头已有序的部分：整个区间已有序时直接返回，有序部分过半时把其余元素二分插入，
+     * 否则区间不超过{@link SortingNetwork#MAX_SIZE}个元素时用无分支的排序网络，更长时用二分插入排序。
+     * 随机数据的有序前缀很短，这一检查只多几次比较；有序、基本有序的数据则不必为排序网络的固定开销买单
+     */
+    static void smallSort(int[] nums, int beginIndex, int endIndex) {
+        int sortedEnd = beginIndex;
+        while (sortedEnd < endIndex && nums[sortedEnd] <= nums[sortedEnd + 1]) {
+            sortedEnd++;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(Math.min(sortedEnd + 1, endIndex) - beginIndex);
+        }
+        if (sortedEnd == endIndex) {
+            return;
+        }
+        if (sortedEnd - beginIndex >= (endIndex - beginIndex) / 2
+                || endIndex - beginIndex >= SortingNetwork.MAX_SIZE) {
+            binaryInsertionSort(nums, beginIndex, endIndex, sortedEnd + 1);
+        } else {
+            SortingNetwork.sort(nums, beginIndex, endIndex);
+        }
     }
 
     /**
@@ -75,7 +231,7 @@ class Sort {
      * 
      * @param nums
      */
-    private static void bubbleSort(int[] nums) {
+    static void bubbleSort(int[] nums) {
         for (int i = 0; i < nums.length - 1; i++) {
             for (int j = 0; j < nums.length - i - 1; j++) {
                 if (nums[j] > nums[j + 1]) {
@@ -92,116 +248,2252 @@ class Sort {
      * 基准元素的值放置其左侧，大于等于该基准元素的值放置其右侧；然后，取基准元素的 前半部分和后半部分分别进行同样的处理；以此类推，直至各子序列剩余一个元素时，
      * 即排序完成（类比二叉树的思想，from up to down）
      * 
+     * 实现为内省排序（introsort）：基准元素取三数中值，大区间取九数中值（ninther），避免有序/逆序输入退化；
+     * 小区间改用插入排序；递归深度超过2logN时改用堆排序，保证最坏情况O(NlogN)；
+     * 只对较短的一侧递归，较长的一侧循环处理，递归深度不超过logN。
+     * 
      * 时间复杂度：O(NlogN) 稳定性：不稳定
      * 
      * @param nums
-     * @param beginIndex
-     * @param endIndex
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
      */
-    private static void quickSort(int[] nums, int beginIndex, int endIndex) {
+    public static void quickSort(int[] nums, int beginIndex, int endIndex) {
         if (endIndex - beginIndex < 1) {
             return;
         }
-        int splitIndex = beginIndex;
-        int tagNum = nums[beginIndex]; // 数组第一个元素作为基准数
+        int depthLimit = 2 * log2(endIndex - beginIndex + 1);
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("quickSort", endIndex - beginIndex + 1);
+        try {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depthLimit(depthLimit);
+            }
+            introSort(nums, beginIndex, endIndex, depthLimit);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 同{@link #quickSort(int[], int, int)}，但不单独记录排序指标，供并行算法在工作线程中排序子区间
+     */
+    static void sortRange(int[] nums, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex >= 1) {
+            introSort(nums, beginIndex, endIndex, 2 * log2(endIndex - beginIndex + 1));
+        }
+    }
+
+    private static void introSort(int[] nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.heapSortFallback();
+                }
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depthLimit);
+            }
+            int splitIndex = partition(nums, beginIndex, endIndex, choosePivot(nums, beginIndex, endIndex));
+
+            // 只对较短的一侧递归
+            if (splitIndex - beginIndex < endIndex - splitIndex) {
+                introSort(nums, beginIndex, splitIndex - 1, depthLimit);
+                beginIndex = splitIndex + 1;
+            } else {
+                introSort(nums, splitIndex + 1, endIndex, depthLimit);
+                endIndex = splitIndex - 1;
+            }
+        }
+        smallSort(nums, beginIndex, endIndex);
+    }
 
-        for (int i = beginIndex; i <= endIndex; i++) {
-            if (nums[i] < tagNum) {
-                splitIndex++;
-                int temp = nums[i];
-                nums[i] = nums[splitIndex];
-                nums[splitIndex] = temp;
+    /**
+     * 以nums[pivotIndex]为基准对区间nums[beginIndex, endIndex]进行划分，区间至少需有两个元素。
+     * 左右指针遇到与基准相等的元素都会停下交换，大量重复元素时划分依然均衡
+     * 
+     * @return 基准元素的最终位置，其左侧均不大于基准，右侧均不小于基准
+     */
+    private static int partition(int[] nums, int beginIndex, int endIndex, int pivotIndex) {
+        swap(nums, beginIndex, pivotIndex);
+        int tagNum = nums[beginIndex];
+        int i = beginIndex;
+        int j = endIndex + 1;
+        while (true) {
+            while (nums[++i] < tagNum) {
+                if (i == endIndex) {
+                    break;
+                }
+            }
+            // nums[beginIndex]即为基准，j不会越过beginIndex
+            while (tagNum < nums[--j]) {
             }
+            if (i >= j) {
+                break;
+            }
+            swap(nums, i, j);
+        }
+        swap(nums, beginIndex, j);
+        if (SortMetrics.ENABLED) {
+            // i只增、j只减，每移动一步比较一次
+            SortMetrics.compared((i - beginIndex) + (endIndex + 1 - j));
         }
+        return j;
+    }
 
-        int temp = nums[splitIndex];
-        nums[splitIndex] = nums[beginIndex];
-        nums[beginIndex] = temp;
+    /**
+     * 快速选择 - 重排数组使nums[k]恰为第k小（从0开始）的元素，其左侧均不大于它、右侧均不小于它。
+     * 
+     * 实现为内省选择（introselect）：沿用快速排序的划分，只在包含k的一侧继续；划分次数超过2logN后
+     * 改用中位数的中位数（median of medians）选取基准，保证最坏情况下也不会退化为O(N2)。
+     * 
+     * 时间复杂度：平均O(N) 稳定性：不稳定
+     * 
+     * @param nums 数组，会被重排
+     * @param k    要选取的位置，从0开始
+     * @return 第k小的元素
+     */
+    public static int select(int[] nums, int k) {
+        if (k < 0 || k >= nums.length) {
+            throw new ArrayIndexOutOfBoundsException(k);
+        }
+        select(nums, 0, nums.length - 1, k);
+        return nums[k];
+    }
 
-        quickSort(nums, beginIndex, splitIndex);
-        quickSort(nums, splitIndex + 1, endIndex);
+    /**
+     * 在区间nums[beginIndex, endIndex]内把第k小的元素放到位置k上，k需位于区间内
+     */
+    private static void select(int[] nums, int beginIndex, int endIndex, int k) {
+        int depthLimit = 2 * log2(endIndex - beginIndex + 1);
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            int pivotIndex = depthLimit-- > 0 ? choosePivot(nums, beginIndex, endIndex)
+                    : medianOfMedians(nums, beginIndex, endIndex);
+            int splitIndex = partition(nums, beginIndex, endIndex, pivotIndex);
+            if (k == splitIndex) {
+                return;
+            } else if (k < splitIndex) {
+                endIndex = splitIndex - 1;
+            } else {
+                beginIndex = splitIndex + 1;
+            }
+        }
+        smallSort(nums, beginIndex, endIndex);
     }
 
     /**
-     * 选择排序 - 首先初始化最小元素索引值为首元素，依次遍历待排序数列，若遇到小于该最小索引
-     * 位置处的元素则刷新最小索引为该较小元素的位置，直至遇到尾元素，结束一次遍历， 并将最小索引处元素与首元素交换；然后，初始化最小索引值为第二个待排序数列元素
-     * 位置，同样的操作，可得到数列第二个元素即为次小元素；以此类推。
+     * 中位数的中位数：每5个元素一组取中位数，依次移到区间开头，再选出这些中位数的中位数。
+     * 其左右两侧至少各有约3/10的元素
      * 
-     * 时间复杂度：O(N2) 稳定性：不稳定
+     * @return 选出的基准元素所在位置
+     */
+    private static int medianOfMedians(int[] nums, int beginIndex, int endIndex) {
+        int groups = 0;
+        for (int i = beginIndex; i <= endIndex; i += 5) {
+            int groupEnd = Math.min(i + 4, endIndex);
+            binaryInsertionSort(nums, i, groupEnd);
+            swap(nums, beginIndex + groups, (i + groupEnd) >>> 1);
+            groups++;
+        }
+        int midIndex = beginIndex + (groups - 1) / 2;
+        select(nums, beginIndex, beginIndex + groups - 1, midIndex);
+        return midIndex;
+    }
+
+    /**
+     * 部分排序 - 把最小的k个元素按升序放到nums[0, k)，其余元素顺序不定。
+     * 先快速选择出第k小的元素，再只对其左侧排序。
+     * 
+     * 时间复杂度：O(N + klogk) 稳定性：不稳定
+     * 
+     * @param nums 数组，会被重排
+     * @param k    需要有序的元素个数
+     */
+    public static void partialSort(int[] nums, int k) {
+        if (k <= 0) {
+            return;
+        }
+        if (k >= nums.length) {
+            quickSort(nums, 0, nums.length - 1);
+            return;
+        }
+        select(nums, 0, nums.length - 1, k - 1);
+        quickSort(nums, 0, k - 2);
+    }
+
+    /**
+     * 选取基准元素：区间较小时取首、中、尾三数中值，较大时取九数中值（三组三数中值的中值）
+     * 
+     * @return 基准元素所在位置
+     */
+    private static int choosePivot(int[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        if (length < NINTHER_THRESHOLD) {
+            return median3(nums, beginIndex, midIndex, endIndex);
+        }
+        int step = length / 8;
+        int low = median3(nums, beginIndex, beginIndex + step, beginIndex + 2 * step);
+        int mid = median3(nums, midIndex - step, midIndex, midIndex + step);
+        int high = median3(nums, endIndex - 2 * step, endIndex - step, endIndex);
+        return median3(nums, low, mid, high);
+    }
+
+    /**
+     * 返回nums[a]、nums[b]、nums[c]三者中值所在的位置
+     */
+    private static int median3(int[] nums, int a, int b, int c) {
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(nums[a] < nums[b] ? (nums[b] < nums[c] ? 2 : 3) : (nums[a] < nums[c] ? 2 : 3));
+        }
+        if (nums[a] < nums[b]) {
+            return nums[b] < nums[c] ? b : (nums[a] < nums[c] ? c : a);
+        } else {
+            return nums[a] < nums[c] ? a : (nums[b] < nums[c] ? c : b);
+        }
+    }
+
+    /**
+     * 堆排序 - 将区间nums[beginIndex, endIndex]建成大顶堆，依次将堆顶与堆尾交换并缩小堆。
+     * 内省排序递归过深时的兜底算法。
+     * 
+     * 时间复杂度：O(NlogN) 稳定性：不稳定
      * 
      * @param nums
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
      */
-    private static void selectionSort(int[] nums) {
-        for (int i = 1; i < nums.length; i++) {
-            int minIndex = i - 1;
-            for (int j = i; j < nums.length; j++) {
-                if (nums[j] < nums[minIndex]) {
-                    minIndex = j;
-                }
+    private static void heapSort(int[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(nums, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(nums, beginIndex, beginIndex + i);
+            siftDown(nums, beginIndex, 0, i);
+        }
+    }
+
+    /**
+     * 大顶堆下沉，堆存放于nums[offset, offset + length)，i为相对offset的位置
+     */
+    private static void siftDown(int[] nums, int offset, int i, int length) {
+        int temp = nums[offset + i];
+        int levels = 0;
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (SortMetrics.ENABLED) {
+                levels++;
             }
-            int temp = nums[minIndex];
-            nums[minIndex] = nums[i - 1];
-            nums[i - 1] = temp;
+            if (child + 1 < length && nums[offset + child] < nums[offset + child + 1]) {
+                child++;
+            }
+            if (nums[offset + child] <= temp) {
+                break;
+            }
+            nums[offset + i] = nums[offset + child];
+            i = child;
+        }
+        nums[offset + i] = temp;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(2L * levels);
+            SortMetrics.moved(levels + 1);
+        }
+    }
+
+    private static void swap(int[] nums, int i, int j) {
+        if (SortMetrics.ENABLED) {
+            SortMetrics.swapped(1);
         }
+        int temp = nums[i];
+        nums[i] = nums[j];
+        nums[j] = temp;
     }
 
     /**
-     * 归并排序 - 采用了分治和递归的思想，递归&分治-排序整个数列如同排序两个有序数列， 依次执行这个过程直至排序末端的两个元素，再依次向上层输送排序好的两个
-     * 子列进行排序直至整个数列有序（类比二叉树的思想，from down to up）。
+     * 返回floor(log2(n))，n需大于0
+     */
+    private static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    /**
+     * 三路快速排序 - 按基准元素把区间划分为小于、等于、大于三段（荷兰国旗问题），等于基准的一段不再参与递归，
+     * 不同取值很少的数组可在近似线性时间内完成排序。基准选取、小区间插入排序及堆排序兜底同{@link #quickSort(int[], int, int)}。
      * 
-     * 时间复杂度：O(NlogN) 稳定性：稳定
+     * 时间复杂度：O(NlogN) 稳定性：不稳定
      * 
      * @param nums
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
      */
-    private static int[] mergeSort(int[] nums) {
+    public static void quickSort3Way(int[] nums, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        int depthLimit = 2 * log2(endIndex - beginIndex + 1);
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("quickSort3Way", endIndex - beginIndex + 1);
+        try {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depthLimit(depthLimit);
+            }
+            introSort3Way(nums, beginIndex, endIndex, depthLimit);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
 
-        if (nums.length <= 1) {
-            return nums;
-        } else {
+    private static void introSort3Way(int[] nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.heapSortFallback();
+                }
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depthLimit);
+            }
+            int tagNum = nums[choosePivot(nums, beginIndex, endIndex)];
+
+            // 循环结束后：[beginIndex, lt)小于基准，[lt, gt]等于基准，(gt, endIndex]大于基准
+            int lt = beginIndex;
+            int gt = endIndex;
+            int i = beginIndex;
+            while (i <= gt) {
+                if (nums[i] < tagNum) {
+                    swap(nums, lt++, i++);
+                } else if (nums[i] > tagNum) {
+                    swap(nums, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                // 每个元素与基准比较一次，不小于基准的再比较一次
+                SortMetrics.compared(2L * (endIndex - beginIndex + 1) - (lt - beginIndex));
+            }
+
+            if (lt - beginIndex < endIndex - gt) {
+                introSort3Way(nums, beginIndex, lt - 1, depthLimit);
+                beginIndex = gt + 1;
+            } else {
+                introSort3Way(nums, gt + 1, endIndex, depthLimit);
+                endIndex = lt - 1;
+            }
+        }
+        smallSort(nums, beginIndex, endIndex);
+    }
 
-            int[] lNums = Arrays.copyOfRange(nums, 0, nums.length / 2);
-            int[] rNums = Arrays.copyOfRange(nums, nums.length / 2, nums.length);
+    /**
+     * 双基准快速排序 - 取两个基准p1 <= p2，把区间划分为小于p1、介于两者之间、大于p2三段（Yaroslavskiy划分）。
+     * 中间段较大时，再把等于p1、p2的元素挤到两端，重复元素多时不会反复处理相同的值。
+     * 小区间插入排序及堆排序兜底同{@link #quickSort(int[], int, int)}。
+     * 
+     * 时间复杂度：O(NlogN) 稳定性：不稳定
+     * 
+     * @param nums
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     */
+    public static void dualPivotQuickSort(int[] nums, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        int depthLimit = 2 * log2(endIndex - beginIndex + 1);
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("dualPivotQuickSort", endIndex - beginIndex + 1);
+        try {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depthLimit(depthLimit);
+            }
+            dualPivotIntroSort(nums, beginIndex, endIndex, depthLimit);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
 
-            int[] lNewNums = mergeSort(lNums);
-            int[] rNewNums = mergeSort(rNums);
-            int lNewIndex = 0;
-            int rNewIndex = 0;
+    private static void dualPivotIntroSort(int[] nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.heapSortFallback();
+                }
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depthLimit);
+            }
 
-            int[] result = new int[nums.length];
-            int resultInsertIndex = 0;
+            // 在区间的五个等分点上取样并排序，第二、第四个样本作为两个基准
+            int seventh = (endIndex - beginIndex + 1) / 7;
+            int e3 = (beginIndex + endIndex) >>> 1;
+            int e2 = e3 - seventh;
+            int e1 = e2 - seventh;
+            int e4 = e3 + seventh;
+            int e5 = e4 + seventh;
+            sort5(nums, e1, e2, e3, e4, e5);
+            swap(nums, beginIndex, e2);
+            swap(nums, endIndex, e4);
+            int pivot1 = nums[beginIndex];
+            int pivot2 = nums[endIndex];
 
-            while (lNewIndex < lNewNums.length || rNewIndex < rNewNums.length) {
-                if (lNewIndex >= lNewNums.length) {
-                    if (rNewIndex < rNewNums.length) {
-                        result[resultInsertIndex] = rNewNums[rNewIndex];
-                        resultInsertIndex++;
-                        rNewIndex++;
+            // 循环结束后：(beginIndex, lt)小于p1，[lt, k)介于两者之间，(gt, endIndex)大于p2
+            int lt = beginIndex + 1;
+            int gt = endIndex - 1;
+            for (int k = lt; k <= gt; k++) {
+                int num = nums[k];
+                if (num < pivot1) {
+                    swap(nums, k, lt++);
+                } else if (num > pivot2) {
+                    while (nums[gt] > pivot2 && k < gt) {
+                        gt--;
+                    }
+                    swap(nums, k, gt--);
+                    if (nums[k] < pivot1) {
+                        swap(nums, k, lt++);
                     }
-                } else if (rNewIndex >= rNewNums.length) {
-                    result[resultInsertIndex] = lNewNums[lNewIndex];
-                    resultInsertIndex++;
-                    lNewIndex++;
-                } else if (lNewNums[lNewIndex] > rNewNums[rNewIndex]) {
-                    result[resultInsertIndex] = rNewNums[rNewIndex];
-                    resultInsertIndex++;
-                    rNewIndex++;
-                } else {
-                    result[resultInsertIndex] = lNewNums[lNewIndex];
-                    resultInsertIndex++;
-                    lNewIndex++;
                 }
             }
-            return result;
+            swap(nums, beginIndex, --lt);
+            swap(nums, endIndex, ++gt);
+
+            // 中间段内若存在大量等于基准的元素，将其挤到中间段两端，不再参与递归
+            int middleBegin = lt + 1;
+            int middleEnd = gt - 1;
+            if (pivot1 == pivot2) {
+                middleEnd = middleBegin - 1;
+            } else if (middleEnd - middleBegin > (endIndex - beginIndex) / 2) {
+                while (middleBegin <= middleEnd && nums[middleBegin] == pivot1) {
+                    middleBegin++;
+                }
+                while (middleBegin <= middleEnd && nums[middleEnd] == pivot2) {
+                    middleEnd--;
+                }
+                for (int k = middleBegin; k <= middleEnd; k++) {
+                    int num = nums[k];
+                    if (num == pivot1) {
+                        swap(nums, k, middleBegin++);
+                    } else if (num == pivot2) {
+                        while (nums[middleEnd] == pivot2 && k < middleEnd) {
+                            middleEnd--;
+                        }
+                        swap(nums, k, middleEnd--);
+                        if (nums[k] == pivot1) {
+                            swap(nums, k, middleBegin++);
+                        }
+                    }
+                }
+            }
+
+            // 较短的两段递归，最长的一段循环处理
+            int leftLength = lt - beginIndex;
+            int middleLength = middleEnd - middleBegin + 1;
+            int rightLength = endIndex - gt;
+            if (leftLength >= middleLength && leftLength >= rightLength) {
+                dualPivotIntroSort(nums, middleBegin, middleEnd, depthLimit);
+                dualPivotIntroSort(nums, gt + 1, endIndex, depthLimit);
+                endIndex = lt - 1;
+            } else if (middleLength >= rightLength) {
+                dualPivotIntroSort(nums, beginIndex, lt - 1, depthLimit);
+                dualPivotIntroSort(nums, gt + 1, endIndex, depthLimit);
+                beginIndex = middleBegin;
+                endIndex = middleEnd;
+            } else {
+                dualPivotIntroSort(nums, beginIndex, lt - 1, depthLimit);
+                dualPivotIntroSort(nums, middleBegin, middleEnd, depthLimit);
+                beginIndex = gt + 1;
+            }
         }
+        smallSort(nums, beginIndex, endIndex);
     }
 
-    private static void printNums(int[] nums) {
-        for (int i = 0; i < nums.length; i++) {
-            if (i == nums.length - 1) {
-                System.out.println(nums[i] + "");
+    /**
+     * 用9次比较交换组成的排序网络对五个位置上的元素进行排序，位置需依次递增
+     */
+    private static void sort5(int[] nums, int e1, int e2, int e3, int e4, int e5) {
+        compareAndSwap(nums, e1, e2);
+        compareAndSwap(nums, e4, e5);
+        compareAndSwap(nums, e3, e5);
+        compareAndSwap(nums, e3, e4);
+        compareAndSwap(nums, e1, e4);
+        compareAndSwap(nums, e1, e3);
+        compareAndSwap(nums, e2, e5);
+        compareAndSwap(nums, e2, e4);
+        compareAndSwap(nums, e2, e3);
+    }
+
+    /**
+     * 若nums[i] > nums[j]则交换两者，i需小于j
+     */
+    private static void compareAndSwap(int[] nums, int i, int j) {
+        if (nums[j] < nums[i]) {
+            swap(nums, i, j);
+        }
+    }
+
+    /**
+     * LSD基数排序 - 以字节为单位，从最低位字节到最高位字节依次做稳定的计数分配，共四趟。
+     * 最高位字节与0x80异或（即翻转符号位），使负数排在正数之前。
+     * 四个字节的直方图一次遍历全部统计完成，某一字节上所有元素取值相同时跳过该趟分配。
+     * 
+     * 时间复杂度：O(N) 稳定性：稳定
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void radixSortLSD(int[] nums) {
+        radixSortLSD(nums, false);
+    }
+
+    /**
+     * LSD基数排序，见{@link #radixSortLSD(int[])}
+     * 
+     * @param nums     要排序的数组，原地排序
+     * @param parallel 是否在ForkJoinPool中并行统计直方图
+     */
+    public static void radixSortLSD(int[] nums, boolean parallel) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("radixSortLSD", nums.length);
+        try {
+            int length = nums.length;
+            if (length < RADIX_SORT_THRESHOLD) {
+                quickSort(nums, 0, length - 1);
+                return;
+            }
+            long start = SortMetrics.now();
+            int[][] counts;
+            if (parallel && length > RADIX_HISTOGRAM_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+                counts = ForkJoinPool.commonPool().invoke(new HistogramTask(nums, 0, length));
             } else {
-                System.out.print(nums[i] + ",");
+                counts = histogram(nums, 0, length);
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("histogram", start);
+                SortMetrics.allocated(4L * RADIX * Integer.BYTES);
+                start = SortMetrics.now();
+            }
+
+            // 所有字节上都只有一种取值时不需要分配，也就不分配辅助数组
+            boolean scatter = false;
+            for (int digit = 0; digit < 4 && !scatter; digit++) {
+                scatter = counts[digit][digitOf(nums[0], digit * 8)] != length;
+            }
+            if (scatter) {
+                int[] dst = new int[length];
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.allocated((long) length * Integer.BYTES);
+                }
+                int[] sorted = radixScatter(nums, 0, dst, 0, length, counts, new int[RADIX]);
+                if (sorted != nums) {
+                    System.arraycopy(sorted, 0, nums, 0, length);
+                    if (SortMetrics.ENABLED) {
+                        SortMetrics.moved(length);
+                    }
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("scatter", start);
+            }
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 取num翻转符号位后从shift位开始的一个字节
+     */
+    private static int digitOf(int num, int shift) {
+        return ((num ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * 对nums[beginIndex, endIndex)做LSD基数排序，算法同{@link #radixSortLSD(int[])}，供对子区间排序的
+     * {@link SampleSort}、{@link SegmentedSort}共用。scratch从scratchBegin开始的同样长度作为辅助空间，与nums逐趟交换角色；
+     * counts（4 × {@value #RADIX}）与offsets（{@value #RADIX}）由调用者提供，以便在多次调用之间复用，原内容被覆盖。
+     * 
+     * @return 排序结果所在的数组：nums（从beginIndex开始）或scratch（从scratchBegin开始）
+     */
+    static int[] radixSortRange(int[] nums, int beginIndex, int endIndex, int[] scratch, int scratchBegin,
+            int[][] counts, int[] offsets) {
+        for (int[] count : counts) {
+            Arrays.fill(count, 0);
+        }
+        histogram(nums, beginIndex, endIndex, counts);
+        return radixScatter(nums, beginIndex, scratch, scratchBegin, endIndex - beginIndex, counts, offsets);
+    }
+
+    /**
+     * 按四个字节的直方图counts，把src[srcBegin, srcBegin + length)从最低位字节起逐趟稳定地分配到dst中以dstBegin开始的位置，
+     * 每趟之后交换src与dst；某一字节上所有元素取值相同时跳过该趟
+     * 
+     * @return 最后一趟的结果所在的数组
+     */
+    private static int[] radixScatter(int[] src, int srcBegin, int[] dst, int dstBegin, int length, int[][] counts,
+            int[] offsets) {
+        for (int digit = 0; digit < 4; digit++) {
+            int[] count = counts[digit];
+            int shift = digit * 8;
+            if (count[digitOf(src[srcBegin], shift)] == length) {
+                continue; // 所有元素在该字节上取值相同
+            }
+            int offset = dstBegin;
+            for (int i = 0; i < RADIX; i++) {
+                offsets[i] = offset;
+                offset += count[i];
+            }
+            for (int i = srcBegin, end = srcBegin + length; i < end; i++) {
+                int num = src[i];
+                dst[offsets[digitOf(num, shift)]++] = num;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moved(length);
+            }
+            int[] temp = src;
+            src = dst;
+            dst = temp;
+            int tempBegin = srcBegin;
+            srcBegin = dstBegin;
+            dstBegin = tempBegin;
+        }
+        return src;
+    }
+
+    /**
+     * 统计nums[beginIndex, endIndex)中四个字节各自的直方图
+     */
+    private static int[][] histogram(int[] nums, int beginIndex, int endIndex) {
+        int[][] counts = new int[4][RADIX];
+        histogram(nums, beginIndex, endIndex, counts);
+        return counts;
+    }
+
+    /**
+     * 把nums[beginIndex, endIndex)中四个字节的取值累加到直方图counts中
+     */
+    private static void histogram(int[] nums, int beginIndex, int endIndex, int[][] counts) {
+        int[] c0 = counts[0];
+        int[] c1 = counts[1];
+        int[] c2 = counts[2];
+        int[] c3 = counts[3];
+        for (int i = beginIndex; i < endIndex; i++) {
+            int num = nums[i] ^ Integer.MIN_VALUE;
+            c0[num & 0xff]++;
+            c1[(num >>> 8) & 0xff]++;
+            c2[(num >>> 16) & 0xff]++;
+            c3[num >>> 24]++;
+        }
+    }
+
+    /**
+     * 并行统计直方图的任务：区间过长时一分为二，分别统计后逐项相加
+     */
+    private static final class HistogramTask extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] nums;
+        private final int beginIndex;
+        private final int endIndex;
+
+        HistogramTask(int[] nums, int beginIndex, int endIndex) {
+            this.nums = nums;
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (endIndex - beginIndex <= RADIX_HISTOGRAM_THRESHOLD) {
+                return histogram(nums, beginIndex, endIndex);
+            }
+            int midIndex = (beginIndex + endIndex) >>> 1;
+            HistogramTask right = new HistogramTask(nums, midIndex, endIndex);
+            right.fork();
+            int[][] counts = new HistogramTask(nums, beginIndex, midIndex).compute();
+            int[][] rightCounts = right.join();
+            for (int digit = 0; digit < 4; digit++) {
+                for (int i = 0; i < RADIX; i++) {
+                    counts[digit][i] += rightCounts[digit][i];
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * MSD基数排序 - 从最高位字节开始，按当前字节原地把元素分配到256个桶中（American flag sort），
+     * 再对每个桶递归处理下一字节；桶内所有元素当前字节相同时直接进入下一字节，较小的桶改用插入排序。
+     * 不需要辅助数组，数据分布偏斜、大部分元素集中在少数高位取值时只会在这些桶上继续深入。
+     * 
+     * 时间复杂度：O(N) 稳定性：不稳定
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void radixSortMSD(int[] nums) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("radixSortMSD", nums.length);
+        try {
+            radixSortMSD(nums, 0, nums.length, 24);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对nums[beginIndex, endIndex)按从shift位开始的字节及更低的字节排序
+     */
+    private static void radixSortMSD(int[] nums, int beginIndex, int endIndex, int shift) {
+        int length = endIndex - beginIndex;
+        if (length < RADIX_MSD_INSERTION_THRESHOLD) {
+            binaryInsertionSort(nums, beginIndex, endIndex - 1);
+            return;
+        }
+
+        int[] count = new int[RADIX];
+        for (int i = beginIndex; i < endIndex; i++) {
+            count[digitOf(nums[i], shift)]++;
+        }
+        if (count[digitOf(nums[beginIndex], shift)] == length) {
+            if (shift > 0) {
+                radixSortMSD(nums, beginIndex, endIndex, shift - 8);
+            }
+            return;
+        }
+
+        // next[i]为桶i中下一个待放置的位置，end[i]为桶i的结束位置
+        int[] next = new int[RADIX];
+        int[] end = new int[RADIX];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(3L * RADIX * Integer.BYTES);
+            SortMetrics.moved(length); // 每个元素恰好写入一次
+        }
+        int offset = beginIndex;
+        for (int i = 0; i < RADIX; i++) {
+            next[i] = offset;
+            offset += count[i];
+            end[i] = offset;
+        }
+
+        // 沿置换环把每个元素放入其所属的桶
+        for (int bucket = 0; bucket < RADIX; bucket++) {
+            while (next[bucket] < end[bucket]) {
+                int num = nums[next[bucket]];
+                int digit = digitOf(num, shift);
+                while (digit != bucket) {
+                    int temp = nums[next[digit]];
+                    nums[next[digit]++] = num;
+                    num = temp;
+                    digit = digitOf(num, shift);
+                }
+                nums[next[bucket]++] = num;
+            }
+        }
+
+        if (shift > 0) {
+            int bucketBegin = beginIndex;
+            for (int bucket = 0; bucket < RADIX; bucket++) {
+                if (count[bucket] > 1) {
+                    radixSortMSD(nums, bucketBegin, end[bucket], shift - 8);
+                }
+                bucketBegin = end[bucket];
+            }
+        }
+    }
+
+    /**
+     * 对int数组升序排序，使用{@link #quickSort(int[], int, int)}
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(int[] nums) {
+        quickSort(nums, 0, nums.length - 1);
+    }
+
+    /**
+     * 对int数组的区间[fromIndex, toIndex)升序排序
+     * 
+     * @param nums      要排序的数组
+     * @param fromIndex 起始位置（包含）
+     * @param toIndex   结束位置（不包含）
+     */
+    public static void sort(int[] nums, int fromIndex, int toIndex) {
+        checkRange(nums.length, fromIndex, toIndex);
+        quickSort(nums, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * 自动选择排序算法 - 先考察输入的特征，再选用最合适的算法，依次判断：
+     * 
+     * 1. 长度不超过{@value #AUTO_INSERTION_THRESHOLD}：二分插入排序；
+     * 2. 顺序扫描一遍，统计最小值、最大值及相邻元素下降、上升的次数。没有下降即已有序，直接返回；
+     * 下降或上升的次数少于长度的1/64，即由少数较长的有序段组成：TimSort合并有序段；
+     * 3. 取值范围不超过长度：计数排序；
+     * 4. 等距抽取{@value #AUTO_SAMPLE_SIZE}个样本排序，不同取值不超过样本数的1/16：三路快速排序；
+     * 5. 长度不小于{@value #AUTO_PARALLEL_THRESHOLD}且公共线程池有多个线程：并行样本排序；
+     * 6. 长度不小于{@value #AUTO_RADIX_THRESHOLD}：LSD基数排序；否则快速排序。
+     * 
+     * 以-Dsort.metrics=true启动时，选择结果与理由通过{@link SortListener#onEngineSelected(String, String)}报告。
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void sortAuto(int[] nums) {
+        int length = nums.length;
+        if (length <= AUTO_INSERTION_THRESHOLD) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("binaryInsertionSort", "n=" + length + " <= " + AUTO_INSERTION_THRESHOLD);
+            }
+            binaryInsertionSort(nums, 0, length - 1);
+            return;
+        }
+
+        int min = nums[0];
+        int max = nums[0];
+        int descents = 0;
+        int ascents = 0;
+        for (int i = 1; i < length; i++) {
+            int num = nums[i];
+            int previous = nums[i - 1];
+            if (num < previous) {
+                descents++;
+            } else if (num > previous) {
+                ascents++;
+            }
+            min = Math.min(min, num);
+            max = Math.max(max, num);
+        }
+        if (descents == 0) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("none", "already sorted");
+            }
+            return;
+        }
+        if (descents < length / 64 || ascents < length / 64) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("timSort",
+                        "descents=" + descents + ", ascents=" + ascents + " < n/64, n=" + length);
+            }
+            timSort(nums);
+            return;
+        }
+        long range = (long) max - min + 1;
+        if (range <= length) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("countingSort", "range=" + range + " <= n=" + length);
+            }
+            countingSort(nums, min, (int) range);
+            return;
+        }
+
+        int sampleSize = Math.min(AUTO_SAMPLE_SIZE, length);
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = nums[(int) ((long) i * length / sampleSize)];
+        }
+        sortRange(sample, 0, sampleSize - 1);
+        int distinct = 1;
+        for (int i = 1; i < sampleSize; i++) {
+            if (sample[i] != sample[i - 1]) {
+                distinct++;
+            }
+        }
+        if (distinct * 16 <= sampleSize) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("quickSort3Way", "sampleDistinct=" + distinct + "/" + sampleSize);
+            }
+            quickSort3Way(nums, 0, length - 1);
+            return;
+        }
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (length >= AUTO_PARALLEL_THRESHOLD && parallelism > 1) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("parallelSampleSort", "n=" + length + " >= " + AUTO_PARALLEL_THRESHOLD
+                        + ", parallelism=" + parallelism);
+            }
+            parallelSampleSort(nums);
+        } else if (length >= AUTO_RADIX_THRESHOLD) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("radixSortLSD", "n=" + length + " >= " + AUTO_RADIX_THRESHOLD
+                        + ", sampleDistinct=" + distinct + "/" + sampleSize);
+            }
+            radixSortLSD(nums);
+        } else {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.engineSelected("quickSort", "n=" + length + " < " + AUTO_RADIX_THRESHOLD
+                        + ", sampleDistinct=" + distinct + "/" + sampleSize);
+            }
+            quickSort(nums, 0, length - 1);
+        }
+    }
+
+    /**
+     * 计数排序，nums中的取值需都在[min, min + range)中
+     */
+    private static void countingSort(int[] nums, int min, int range) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("countingSort", nums.length);
+        try {
+            int[] count = new int[range];
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated((long) range * Integer.BYTES);
+                SortMetrics.moved(nums.length);
+            }
+            for (int num : nums) {
+                count[num - min]++;
+            }
+            int k = 0;
+            for (int i = 0; i < range; i++) {
+                int num = min + i;
+                for (int c = count[i]; c > 0; c--) {
+                    nums[k++] = num;
+                }
+            }
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对long数组升序排序，算法同{@link #quickSort(int[], int, int)}
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(long[] nums) {
+        quickSort(nums, 0, nums.length - 1);
+    }
+
+    /**
+     * 对long数组的区间[fromIndex, toIndex)升序排序
+     * 
+     * @param nums      要排序的数组
+     * @param fromIndex 起始位置（包含）
+     * @param toIndex   结束位置（不包含）
+     */
+    public static void sort(long[] nums, int fromIndex, int toIndex) {
+        checkRange(nums.length, fromIndex, toIndex);
+        quickSort(nums, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * 对double数组升序排序，顺序与{@link Double#compare(double, double)}一致：-0.0排在0.0之前，NaN排在最后。
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(double[] nums) {
+        sort(nums, 0, nums.length);
+    }
+
+    /**
+     * 对double数组的区间[fromIndex, toIndex)升序排序，见{@link #sort(double[])}
+     * 
+     * 先把NaN移到区间末尾、把-0.0改写为0.0并计数，对其余部分直接用&lt;比较做内省排序，
+     * 最后在0.0的起始位置写回-0.0。
+     * 
+     * @param nums      要排序的数组
+     * @param fromIndex 起始位置（包含）
+     * @param toIndex   结束位置（不包含）
+     */
+    public static void sort(double[] nums, int fromIndex, int toIndex) {
+        checkRange(nums.length, fromIndex, toIndex);
+        int endIndex = toIndex - 1;
+        int negativeZeros = 0;
+        for (int i = endIndex; i >= fromIndex; i--) {
+            double num = nums[i];
+            if (num != num) { // NaN
+                nums[i] = nums[endIndex];
+                nums[endIndex--] = num;
+            } else if (num == 0.0d && Double.doubleToRawLongBits(num) < 0) {
+                nums[i] = 0.0d;
+                negativeZeros++;
+            }
+        }
+        quickSort(nums, fromIndex, endIndex);
+
+        if (negativeZeros > 0) {
+            // 找到第一个0.0
+            int low = fromIndex;
+            int high = endIndex + 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (nums[mid] < 0.0d) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = 0; i < negativeZeros; i++) {
+                nums[low + i] = -0.0d;
+            }
+        }
+    }
+
+    /**
+     * 对short数组升序排序：较短时插入排序，否则对65536种取值做计数排序
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(short[] nums) {
+        int length = nums.length;
+        if (length < COUNTING_SORT_THRESHOLD_SHORT_OR_CHAR) {
+            for (int i = 1; i < length; i++) {
+                short temp = nums[i];
+                int j = i - 1;
+                while (j >= 0 && nums[j] > temp) {
+                    nums[j + 1] = nums[j];
+                    j--;
+                }
+                nums[j + 1] = temp;
+            }
+            return;
+        }
+        int[] count = new int[1 << 16];
+        for (int i = 0; i < length; i++) {
+            count[nums[i] - Short.MIN_VALUE]++;
+        }
+        int k = 0;
+        for (int i = 0; i < count.length; i++) {
+            short num = (short) (i + Short.MIN_VALUE);
+            for (int c = count[i]; c > 0; c--) {
+                nums[k++] = num;
+            }
+        }
+    }
+
+    /**
+     * 对char数组升序排序：较短时插入排序，否则对65536种取值做计数排序
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(char[] nums) {
+        int length = nums.length;
+        if (length < COUNTING_SORT_THRESHOLD_SHORT_OR_CHAR) {
+            for (int i = 1; i < length; i++) {
+                char temp = nums[i];
+                int j = i - 1;
+                while (j >= 0 && nums[j] > temp) {
+                    nums[j + 1] = nums[j];
+                    j--;
+                }
+                nums[j + 1] = temp;
+            }
+            return;
+        }
+        int[] count = new int[1 << 16];
+        for (int i = 0; i < length; i++) {
+            count[nums[i]]++;
+        }
+        int k = 0;
+        for (int i = 0; i < count.length; i++) {
+            for (int c = count[i]; c > 0; c--) {
+                nums[k++] = (char) i;
+            }
+        }
+    }
+
+    /**
+     * 对byte数组升序排序：较短时插入排序，否则对256种取值做计数排序
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void sort(byte[] nums) {
+        int length = nums.length;
+        if (length < COUNTING_SORT_THRESHOLD_BYTE) {
+            for (int i = 1; i < length; i++) {
+                byte temp = nums[i];
+                int j = i - 1;
+                while (j >= 0 && nums[j] > temp) {
+                    nums[j + 1] = nums[j];
+                    j--;
+                }
+                nums[j + 1] = temp;
+            }
+            return;
+        }
+        int[] count = new int[1 << 8];
+        for (int i = 0; i < length; i++) {
+            count[nums[i] - Byte.MIN_VALUE]++;
+        }
+        int k = 0;
+        for (int i = 0; i < count.length; i++) {
+            byte num = (byte) (i + Byte.MIN_VALUE);
+            for (int c = count[i]; c > 0; c--) {
+                nums[k++] = num;
+            }
+        }
+    }
+
+    /**
+     * 对对象数组按比较器排序，稳定。算法同{@link #mergeSort(int[])}：单个辅助数组交替读写，小区间插入排序。
+     * 
+     * @param items      要排序的数组
+     * @param comparator 比较器，为null时按元素的自然顺序（元素需实现Comparable）
+     */
+    public static <T> void sort(T[] items, Comparator<? super T> comparator) {
+        if (items.length > 1) {
+            @SuppressWarnings("unchecked")
+            Comparator<Object> c = (Comparator<Object>) (comparator != null ? comparator : Comparator.naturalOrder());
+            mergeSort(items.clone(), items, 0, items.length, c);
+        }
+    }
+
+    /**
+     * 对列表按比较器排序，稳定，见{@link #sort(Object[], Comparator)}
+     * 
+     * @param list       要排序的列表，需支持{@link ListIterator#set(Object)}
+     * @param comparator 比较器，为null时按元素的自然顺序
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        Object[] items = list.toArray();
+        sort(items, (Comparator<Object>) comparator);
+        ListIterator<T> iterator = list.listIterator();
+        for (Object item : items) {
+            iterator.next();
+            iterator.set((T) item);
+        }
+    }
+
+    /**
+     * 按从元素中提取出的键对对象数组排序，稳定
+     * 
+     * @param items        要排序的数组
+     * @param keyExtractor 键提取函数
+     */
+    public static <T, U extends Comparable<? super U>> void sortBy(T[] items,
+            Function<? super T, ? extends U> keyExtractor) {
+        sort(items, Comparator.comparing(keyExtractor));
+    }
+
+    /**
+     * 按从元素中提取出的键对列表排序，稳定
+     * 
+     * @param list         要排序的列表
+     * @param keyExtractor 键提取函数
+     */
+    public static <T, U extends Comparable<? super U>> void sortBy(List<T> list,
+            Function<? super T, ? extends U> keyExtractor) {
+        sort(list, Comparator.comparing(keyExtractor));
+    }
+
+    /**
+     * 下标比较器：比较两个下标所对应的数据，供{@link #argsort(int, IndexComparator)}使用，比较过程不装箱
+     */
+    public interface IndexComparator {
+        /**
+         * @return 负数、0、正数分别表示下标i对应的数据小于、等于、大于下标j对应的数据
+         */
+        int compare(int i, int j);
+    }
+
+    /**
+     * 间接排序 - 返回使keys升序的下标排列order，即keys[order[0]] <= keys[order[1]] <= ...，keys本身不变。
+     * 键相同的下标保持升序（稳定）。
+     * 
+     * 实现上把键与下标拼成long后排序，不需要在比较时间接访问键数组。
+     * 
+     * @param keys 键
+     * @return 排序后的下标排列
+     */
+    public static int[] argsort(int[] keys) {
+        return ArgSort.sortPacked(keys);
+    }
+
+    /**
+     * 间接排序，稳定，见{@link #argsort(int[])}
+     */
+    public static int[] argsort(long[] keys) {
+        return ArgSort.sort(keys.length, (i, j) -> Long.compare(keys[i], keys[j]), false);
+    }
+
+    /**
+     * 间接排序，稳定，顺序与{@link Double#compare(double, double)}一致，见{@link #argsort(int[])}
+     */
+    public static int[] argsort(double[] keys) {
+        return ArgSort.sort(keys.length, (i, j) -> Double.compare(keys[i], keys[j]), false);
+    }
+
+    /**
+     * 按任意下标比较器对[0, length)做间接排序，稳定
+     * 
+     * @param length     下标个数
+     * @param comparator 下标比较器
+     * @return 排序后的下标排列
+     */
+    public static int[] argsort(int length, IndexComparator comparator) {
+        return ArgSort.sort(length, comparator, false);
+    }
+
+    /**
+     * 多列间接排序 - 先按第一列、再按第二列……依次比较（字典序），稳定
+     * 
+     * @param columns 键列，长度须相同
+     * @return 排序后的下标排列
+     */
+    public static int[] argsortLexicographic(int[]... columns) {
+        return ArgSort.sort(checkColumns(columns), lexicographic(columns), false);
+    }
+
+    /**
+     * 并行间接排序，结果与{@link #argsort(int[])}相同
+     */
+    public static int[] parallelArgsort(int[] keys) {
+        return ArgSort.sort(keys.length, (i, j) -> Integer.compare(keys[i], keys[j]), true);
+    }
+
+    /**
+     * 并行间接排序，结果与{@link #argsort(long[])}相同
+     */
+    public static int[] parallelArgsort(long[] keys) {
+        return ArgSort.sort(keys.length, (i, j) -> Long.compare(keys[i], keys[j]), true);
+    }
+
+    /**
+     * 并行间接排序，结果与{@link #argsort(double[])}相同
+     */
+    public static int[] parallelArgsort(double[] keys) {
+        return ArgSort.sort(keys.length, (i, j) -> Double.compare(keys[i], keys[j]), true);
+    }
+
+    /**
+     * 并行间接排序，结果与{@link #argsort(int, IndexComparator)}相同
+     */
+    public static int[] parallelArgsort(int length, IndexComparator comparator) {
+        return ArgSort.sort(length, comparator, true);
+    }
+
+    /**
+     * 并行多列间接排序，结果与{@link #argsortLexicographic(int[][])}相同
+     */
+    public static int[] parallelArgsortLexicographic(int[]... columns) {
+        return ArgSort.sort(checkColumns(columns), lexicographic(columns), true);
+    }
+
+    /**
+     * 按下标排列取出一列数据：result[i] = column[order[i]]
+     */
+    public static int[] gather(int[] column, int[] order) {
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 按下标排列取出一列数据：result[i] = column[order[i]]
+     */
+    public static long[] gather(long[] column, int[] order) {
+        long[] result = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 按下标排列取出一列数据：result[i] = column[order[i]]
+     */
+    public static double[] gather(double[] column, int[] order) {
+        double[] result = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = column[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 检查各列长度是否一致
+     * 
+     * @return 列的长度
+     */
+    private static int checkColumns(int[][] columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("at least one key column is required");
+        }
+        int length = columns[0].length;
+        for (int[] column : columns) {
+            if (column.length != length) {
+                throw new IllegalArgumentException("key columns differ in length: " + length + " != " + column.length);
+            }
+        }
+        return length;
+    }
+
+    private static IndexComparator lexicographic(int[][] columns) {
+        int[][] keys = columns.clone();
+        return (i, j) -> {
+            for (int[] column : keys) {
+                int c = Integer.compare(column[i], column[j]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private static void mergeSort(Object[] src, Object[] dst, int beginIndex, int endIndex,
+            Comparator<Object> comparator) {
+        if (endIndex - beginIndex <= MERGE_SORT_INSERTION_THRESHOLD) {
+            for (int i = beginIndex + 1; i < endIndex; i++) {
+                Object temp = dst[i];
+                int j = i - 1;
+                while (j >= beginIndex && comparator.compare(dst[j], temp) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+                dst[j + 1] = temp;
+            }
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dst, src, beginIndex, midIndex, comparator);
+        mergeSort(dst, src, midIndex, endIndex, comparator);
+
+        // 两半已经整体有序时直接拷贝
+        if (comparator.compare(src[midIndex - 1], src[midIndex]) <= 0) {
+            System.arraycopy(src, beginIndex, dst, beginIndex, endIndex - beginIndex);
+            return;
+        }
+        int i = beginIndex;
+        int j = midIndex;
+        for (int k = beginIndex; k < endIndex; k++) {
+            if (j >= endIndex || (i < midIndex && comparator.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /**
+     * 检查区间[fromIndex, toIndex)是否位于长度为length的数组内
+     */
+    private static void checkRange(int length, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > length) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+
+    /**
+     * 对long数组进行内省排序，算法同{@link #quickSort(int[], int, int)}
+     * 
+     * @param nums
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     */
+    private static void quickSort(long[] nums, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        introSort(nums, beginIndex, endIndex, 2 * log2(endIndex - beginIndex + 1));
+    }
+
+    private static void introSort(long[] nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            int splitIndex = partition(nums, beginIndex, endIndex);
+            if (splitIndex - beginIndex < endIndex - splitIndex) {
+                introSort(nums, beginIndex, splitIndex - 1, depthLimit);
+                beginIndex = splitIndex + 1;
+            } else {
+                introSort(nums, splitIndex + 1, endIndex, depthLimit);
+                endIndex = splitIndex - 1;
+            }
+        }
+        insertionSort(nums, beginIndex, endIndex);
+    }
+
+    private static int partition(long[] nums, int beginIndex, int endIndex) {
+        swap(nums, beginIndex, choosePivot(nums, beginIndex, endIndex));
+        long tagNum = nums[beginIndex];
+        int i = beginIndex;
+        int j = endIndex + 1;
+        while (true) {
+            while (nums[++i] < tagNum) {
+                if (i == endIndex) {
+                    break;
+                }
+            }
+            while (tagNum < nums[--j]) {
+            }
+            if (i >= j) {
+                break;
+            }
+            swap(nums, i, j);
+        }
+        swap(nums, beginIndex, j);
+        return j;
+    }
+
+    private static int choosePivot(long[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        if (length < NINTHER_THRESHOLD) {
+            return median3(nums, beginIndex, midIndex, endIndex);
+        }
+        int step = length / 8;
+        int low = median3(nums, beginIndex, beginIndex + step, beginIndex + 2 * step);
+        int mid = median3(nums, midIndex - step, midIndex, midIndex + step);
+        int high = median3(nums, endIndex - 2 * step, endIndex - step, endIndex);
+        return median3(nums, low, mid, high);
+    }
+
+    private static int median3(long[] nums, int a, int b, int c) {
+        if (nums[a] < nums[b]) {
+            return nums[b] < nums[c] ? b : (nums[a] < nums[c] ? c : a);
+        } else {
+            return nums[a] < nums[c] ? a : (nums[b] < nums[c] ? c : b);
+        }
+    }
+
+    private static void heapSort(long[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(nums, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(nums, beginIndex, beginIndex + i);
+            siftDown(nums, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(long[] nums, int offset, int i, int length) {
+        long temp = nums[offset + i];
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && nums[offset + child] < nums[offset + child + 1]) {
+                child++;
+            }
+            if (nums[offset + child] <= temp) {
+                break;
+            }
+            nums[offset + i] = nums[offset + child];
+            i = child;
+        }
+        nums[offset + i] = temp;
+    }
+
+    private static void insertionSort(long[] nums, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            long temp = nums[i];
+            int j = i - 1;
+            while (j >= beginIndex && nums[j] > temp) {
+                nums[j + 1] = nums[j];
+                j--;
+            }
+            nums[j + 1] = temp;
+        }
+    }
+
+    private static void swap(long[] nums, int i, int j) {
+        long temp = nums[i];
+        nums[i] = nums[j];
+        nums[j] = temp;
+    }
+
+    /**
+     * 对double数组进行内省排序，算法同{@link #quickSort(int[], int, int)}
+     * 
+     * @param nums
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     */
+    private static void quickSort(double[] nums, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        introSort(nums, beginIndex, endIndex, 2 * log2(endIndex - beginIndex + 1));
+    }
+
+    private static void introSort(double[] nums, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(nums, beginIndex, endIndex);
+                return;
+            }
+            int splitIndex = partition(nums, beginIndex, endIndex);
+            if (splitIndex - beginIndex < endIndex - splitIndex) {
+                introSort(nums, beginIndex, splitIndex - 1, depthLimit);
+                beginIndex = splitIndex + 1;
+            } else {
+                introSort(nums, splitIndex + 1, endIndex, depthLimit);
+                endIndex = splitIndex - 1;
+            }
+        }
+        insertionSort(nums, beginIndex, endIndex);
+    }
+
+    private static int partition(double[] nums, int beginIndex, int endIndex) {
+        swap(nums, beginIndex, choosePivot(nums, beginIndex, endIndex));
+        double tagNum = nums[beginIndex];
+        int i = beginIndex;
+        int j = endIndex + 1;
+        while (true) {
+            while (nums[++i] < tagNum) {
+                if (i == endIndex) {
+                    break;
+                }
+            }
+            while (tagNum < nums[--j]) {
+            }
+            if (i >= j) {
+                break;
+            }
+            swap(nums, i, j);
+        }
+        swap(nums, beginIndex, j);
+        return j;
+    }
+
+    private static int choosePivot(double[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        if (length < NINTHER_THRESHOLD) {
+            return median3(nums, beginIndex, midIndex, endIndex);
+        }
+        int step = length / 8;
+        int low = median3(nums, beginIndex, beginIndex + step, beginIndex + 2 * step);
+        int mid = median3(nums, midIndex - step, midIndex, midIndex + step);
+        int high = median3(nums, endIndex - 2 * step, endIndex - step, endIndex);
+        return median3(nums, low, mid, high);
+    }
+
+    private static int median3(double[] nums, int a, int b, int c) {
+        if (nums[a] < nums[b]) {
+            return nums[b] < nums[c] ? b : (nums[a] < nums[c] ? c : a);
+        } else {
+            return nums[a] < nums[c] ? a : (nums[b] < nums[c] ? c : b);
+        }
+    }
+
+    private static void heapSort(double[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(nums, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(nums, beginIndex, beginIndex + i);
+            siftDown(nums, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(double[] nums, int offset, int i, int length) {
+        double temp = nums[offset + i];
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && nums[offset + child] < nums[offset + child + 1]) {
+                child++;
+            }
+            if (nums[offset + child] <= temp) {
+                break;
+            }
+            nums[offset + i] = nums[offset + child];
+            i = child;
+        }
+        nums[offset + i] = temp;
+    }
+
+    private static void insertionSort(double[] nums, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            double temp = nums[i];
+            int j = i - 1;
+            while (j >= beginIndex && nums[j] > temp) {
+                nums[j + 1] = nums[j];
+                j--;
+            }
+            nums[j + 1] = temp;
+        }
+    }
+
+    private static void swap(double[] nums, int i, int j) {
+        double temp = nums[i];
+        nums[i] = nums[j];
+        nums[j] = temp;
+    }
+
+    /**
+     * TimSort - 识别数组中已有的升序/降序段，短段用二分插入排序补足后按栈规则合并，合并时支持飞奔模式，
+     * 对已基本有序的输入接近O(N)。实现见{@link TimSort}。
+     * 
+     * 时间复杂度：O(NlogN)，有序输入O(N) 稳定性：稳定
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void timSort(int[] nums) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("timSort", nums.length);
+        try {
+            TimSort.sort(nums, 0, nums.length);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 选择排序 - 首先初始化最小元素索引值为首元素，依次遍历待排序数列，若遇到小于该最小索引
+     * 位置处的元素则刷新最小索引为该较小元素的位置，直至遇到尾元素，结束一次遍历， 并将最小索引处元素与首元素交换；然后，初始化最小索引值为第二个待排序数列元素
+     * 位置，同样的操作，可得到数列第二个元素即为次小元素；以此类推。
+     * 
+     * 时间复杂度：O(N2) 稳定性：不稳定
+     * 
+     * @param nums
+     */
+    static void selectionSort(int[] nums) {
+        for (int i = 1; i < nums.length; i++) {
+            int minIndex = i - 1;
+            for (int j = i; j < nums.length; j++) {
+                if (nums[j] < nums[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            int temp = nums[minIndex];
+            nums[minIndex] = nums[i - 1];
+            nums[i - 1] = temp;
+        }
+    }
+
+    /**
+     * 归并排序 - 采用了分治和递归的思想，递归&分治-排序整个数列如同排序两个有序数列， 依次执行这个过程直至排序末端的两个元素，再依次向上层输送排序好的两个
+     * 子列进行排序直至整个数列有序（类比二叉树的思想，from down to up）。
+     * 
+     * 实现上只分配一个与原数组等长的辅助数组，每一层递归在原数组与辅助数组之间交替读写（ping-pong），
+     * 不再在每层递归中拷贝左右子列和分配结果数组。
+     * 
+     * 时间复杂度：O(NlogN) 稳定性：稳定
+     * 
+     * @param nums
+     * @return 排好序的新数组，原数组不变
+     */
+    public static int[] mergeSort(int[] nums) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("mergeSort", nums.length);
+        try {
+            int[] result = nums.clone();
+            if (result.length > 1) {
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.allocated(2L * nums.length * Integer.BYTES);
+                }
+                mergeSort(nums.clone(), result, 0, result.length);
+            }
+            return result;
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 将src[beginIndex, endIndex)排序后写入dst[beginIndex, endIndex)，调用前两者在该区间内的内容必须相同。
+     * 递归时交换src与dst的角色，使得每层只需一次合并即可把结果落到目标数组中。
+     * 
+     * @param src        源数组
+     * @param dst        目标数组
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（不包含）
+     */
+    static void mergeSort(int[] src, int[] dst, int beginIndex, int endIndex) {
+        if (endIndex - beginIndex <= MERGE_SORT_INSERTION_THRESHOLD) {
+            smallSort(dst, beginIndex, endIndex - 1); // int相等即无法区分，小区间不要求稳定
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dst, src, beginIndex, midIndex);
+        mergeSort(dst, src, midIndex, endIndex);
+        if (src[midIndex - 1] <= src[midIndex]) {
+            System.arraycopy(src, beginIndex, dst, beginIndex, endIndex - beginIndex); // 两段已经首尾有序
+            return;
+        }
+        merge(src, beginIndex, midIndex, src, midIndex, endIndex, dst, beginIndex);
+    }
+
+    /**
+     * 合并两个有序区间a[aBegin, aEnd)与b[bBegin, bEnd)到dst中以dstBegin开始的位置，相等元素优先取a中的，保证稳定性
+     */
+    static void merge(int[] a, int aBegin, int aEnd, int[] b, int bBegin, int bEnd, int[] dst,
+            int dstBegin) {
+        int i = aBegin;
+        int j = bBegin;
+        int k = dstBegin;
+        while (i < aEnd && j < bEnd) {
+            if (b[j] < a[i]) {
+                dst[k++] = b[j++];
+            } else {
+                dst[k++] = a[i++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(k - dstBegin);
+            SortMetrics.moved((aEnd - aBegin) + (bEnd - bBegin));
+        }
+        if (i < aEnd) {
+            System.arraycopy(a, i, dst, k, aEnd - i);
+        } else if (j < bEnd) {
+            System.arraycopy(b, j, dst, k, bEnd - j);
+        }
+    }
+
+    /**
+     * 块归并排序 - 原地的稳定归并排序，合并时把两段切成√N大小的块，按块首做块选择后逐块局部归并，
+     * 辅助数组只有约√N个元素，适合堆内存紧张的场合，详见{@link BlockMergeSort}。
+     * 时间复杂度：O(NlogN) 稳定性：稳定 额外空间：O(√N)
+     * 
+     * @param nums 要排序的数组
+     */
+    public static void blockMergeSort(int[] nums) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("blockMergeSort", nums.length);
+        try {
+            BlockMergeSort.sort(nums, 0, nums.length);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 对对象数组按比较器做块归并排序，稳定，额外空间O(√N)，见{@link #blockMergeSort(int[])}
+     * 
+     * @param items      要排序的数组
+     * @param comparator 比较器，为null时按元素的自然顺序（元素需实现Comparable）
+     */
+    public static <T> void blockMergeSort(T[] items, Comparator<? super T> comparator) {
+        @SuppressWarnings("unchecked")
+        Comparator<Object> c = (Comparator<Object>) (comparator != null ? comparator : Comparator.naturalOrder());
+        BlockMergeSort.sort(items, c);
+    }
+
+    /**
+     * 键值对快速排序 - 以keys为键对区间[beginIndex, endIndex]做内省排序，payload中同一位置的元素随键一起移动。
+     * 算法同{@link #quickSort(int[], int, int)}，原地排序，不稳定。
+     * 
+     * @param keys       键
+     * @param payload    随键移动的数据，长度不小于keys
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     * @throws IllegalArgumentException       payload比keys短
+     * @throws ArrayIndexOutOfBoundsException 区间不在keys内
+     */
+    public static void quickSort(int[] keys, int[] payload, int beginIndex, int endIndex) {
+        checkPayload(keys.length, payload.length, beginIndex, endIndex);
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        introSort(keys, payload, beginIndex, endIndex, 2 * log2(endIndex - beginIndex + 1));
+    }
+
+    private static void introSort(int[] keys, int[] payload, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(keys, payload, beginIndex, endIndex);
+                return;
+            }
+            swap(keys, payload, beginIndex, choosePivot(keys, beginIndex, endIndex));
+            int tagNum = keys[beginIndex];
+            int i = beginIndex;
+            int j = endIndex + 1;
+            while (true) {
+                while (keys[++i] < tagNum) {
+                    if (i == endIndex) {
+                        break;
+                    }
+                }
+                while (tagNum < keys[--j]) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(keys, payload, i, j);
+            }
+            swap(keys, payload, beginIndex, j);
+
+            if (j - beginIndex < endIndex - j) {
+                introSort(keys, payload, beginIndex, j - 1, depthLimit);
+                beginIndex = j + 1;
+            } else {
+                introSort(keys, payload, j + 1, endIndex, depthLimit);
+                endIndex = j - 1;
+            }
+        }
+        binaryInsertionSort(keys, payload, beginIndex, endIndex);
+    }
+
+    /**
+     * 键值对二分插入排序，稳定，同{@link #binaryInsertionSort(int[], int, int)}
+     */
+    private static void binaryInsertionSort(int[] keys, int[] payload, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            int key = keys[i];
+            if (keys[i - 1] <= key) {
+                continue;
+            }
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key < keys[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            int value = payload[i];
+            System.arraycopy(keys, low, keys, low + 1, i - low);
+            System.arraycopy(payload, low, payload, low + 1, i - low);
+            keys[low] = key;
+            payload[low] = value;
+        }
+    }
+
+    private static void heapSort(int[] keys, int[] payload, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(keys, payload, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(keys, payload, beginIndex, beginIndex + i);
+            siftDown(keys, payload, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(int[] keys, int[] payload, int offset, int i, int length) {
+        int key = keys[offset + i];
+        int value = payload[offset + i];
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && keys[offset + child] < keys[offset + child + 1]) {
+                child++;
+            }
+            if (keys[offset + child] <= key) {
+                break;
+            }
+            keys[offset + i] = keys[offset + child];
+            payload[offset + i] = payload[offset + child];
+            i = child;
+        }
+        keys[offset + i] = key;
+        payload[offset + i] = value;
+    }
+
+    private static void swap(int[] keys, int[] payload, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = payload[i];
+        payload[i] = payload[j];
+        payload[j] = value;
+    }
+
+    /**
+     * 键值对归并排序 - 以keys为键排序，payload中同一位置的元素随键一起移动；键相同的元素保持原有先后顺序（稳定）。
+     * 键与数据各用一个辅助数组交替读写，同{@link #mergeSort(int[])}，但结果写回原数组。
+     * 
+     * @param keys    键，原地排序
+     * @param payload 随键移动的数据，长度需与keys相同
+     */
+    public static void mergeSort(int[] keys, int[] payload) {
+        checkPayload(keys.length, payload.length);
+        if (keys.length > 1) {
+            mergeSort(keys.clone(), payload.clone(), keys, payload, 0, keys.length);
+        }
+    }
+
+    private static void mergeSort(int[] srcKeys, int[] srcPayload, int[] dstKeys, int[] dstPayload,
+            int beginIndex, int endIndex) {
+        if (endIndex - beginIndex <= MERGE_SORT_INSERTION_THRESHOLD) {
+            binaryInsertionSort(dstKeys, dstPayload, beginIndex, endIndex - 1);
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dstKeys, dstPayload, srcKeys, srcPayload, beginIndex, midIndex);
+        mergeSort(dstKeys, dstPayload, srcKeys, srcPayload, midIndex, endIndex);
+
+        int i = beginIndex;
+        int j = midIndex;
+        int k = beginIndex;
+        while (i < midIndex && j < endIndex) {
+            if (srcKeys[j] < srcKeys[i]) {
+                dstKeys[k] = srcKeys[j];
+                dstPayload[k++] = srcPayload[j++];
+            } else {
+                dstKeys[k] = srcKeys[i];
+                dstPayload[k++] = srcPayload[i++];
+            }
+        }
+        if (i < midIndex) {
+            System.arraycopy(srcKeys, i, dstKeys, k, midIndex - i);
+            System.arraycopy(srcPayload, i, dstPayload, k, midIndex - i);
+        } else if (j < endIndex) {
+            System.arraycopy(srcKeys, j, dstKeys, k, endIndex - j);
+            System.arraycopy(srcPayload, j, dstPayload, k, endIndex - j);
+        }
+    }
+
+    /**
+     * 键值对快速排序 - 以keys为键对区间[beginIndex, endIndex]做内省排序，payload中同一位置的元素随键一起移动。
+     * 算法同{@link #quickSort(int[], int, int)}，原地排序，不稳定。
+     * 
+     * @param keys       键
+     * @param payload    随键移动的数据，长度不小于keys
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     * @throws IllegalArgumentException       payload比keys短
+     * @throws ArrayIndexOutOfBoundsException 区间不在keys内
+     */
+    public static void quickSort(int[] keys, long[] payload, int beginIndex, int endIndex) {
+        checkPayload(keys.length, payload.length, beginIndex, endIndex);
+        if (endIndex - beginIndex < 1) {
+            return;
+        }
+        introSort(keys, payload, beginIndex, endIndex, 2 * log2(endIndex - beginIndex + 1));
+    }
+
+    private static void introSort(int[] keys, long[] payload, int beginIndex, int endIndex, int depthLimit) {
+        while (endIndex - beginIndex >= QUICK_SORT_INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(keys, payload, beginIndex, endIndex);
+                return;
+            }
+            swap(keys, payload, beginIndex, choosePivot(keys, beginIndex, endIndex));
+            int tagNum = keys[beginIndex];
+            int i = beginIndex;
+            int j = endIndex + 1;
+            while (true) {
+                while (keys[++i] < tagNum) {
+                    if (i == endIndex) {
+                        break;
+                    }
+                }
+                while (tagNum < keys[--j]) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(keys, payload, i, j);
+            }
+            swap(keys, payload, beginIndex, j);
+
+            if (j - beginIndex < endIndex - j) {
+                introSort(keys, payload, beginIndex, j - 1, depthLimit);
+                beginIndex = j + 1;
+            } else {
+                introSort(keys, payload, j + 1, endIndex, depthLimit);
+                endIndex = j - 1;
+            }
+        }
+        binaryInsertionSort(keys, payload, beginIndex, endIndex);
+    }
+
+    /**
+     * 键值对二分插入排序，稳定，同{@link #binaryInsertionSort(int[], int, int)}
+     */
+    private static void binaryInsertionSort(int[] keys, long[] payload, int beginIndex, int endIndex) {
+        for (int i = beginIndex + 1; i <= endIndex; i++) {
+            int key = keys[i];
+            if (keys[i - 1] <= key) {
+                continue;
+            }
+            int low = beginIndex;
+            int high = i - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key < keys[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            long value = payload[i];
+            System.arraycopy(keys, low, keys, low + 1, i - low);
+            System.arraycopy(payload, low, payload, low + 1, i - low);
+            keys[low] = key;
+            payload[low] = value;
+        }
+    }
+
+    private static void heapSort(int[] keys, long[] payload, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(keys, payload, beginIndex, i, length);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(keys, payload, beginIndex, beginIndex + i);
+            siftDown(keys, payload, beginIndex, 0, i);
+        }
+    }
+
+    private static void siftDown(int[] keys, long[] payload, int offset, int i, int length) {
+        int key = keys[offset + i];
+        long value = payload[offset + i];
+        int child;
+        while ((child = 2 * i + 1) < length) {
+            if (child + 1 < length && keys[offset + child] < keys[offset + child + 1]) {
+                child++;
+            }
+            if (keys[offset + child] <= key) {
+                break;
+            }
+            keys[offset + i] = keys[offset + child];
+            payload[offset + i] = payload[offset + child];
+            i = child;
+        }
+        keys[offset + i] = key;
+        payload[offset + i] = value;
+    }
+
+    private static void swap(int[] keys, long[] payload, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long value = payload[i];
+        payload[i] = payload[j];
+        payload[j] = value;
+    }
+
+    /**
+     * 键值对归并排序 - 以keys为键排序，payload中同一位置的元素随键一起移动；键相同的元素保持原有先后顺序（稳定）。
+     * 键与数据各用一个辅助数组交替读写，同{@link #mergeSort(int[])}，但结果写回原数组。
+     * 
+     * @param keys    键，原地排序
+     * @param payload 随键移动的数据，长度需与keys相同
+     */
+    public static void mergeSort(int[] keys, long[] payload) {
+        checkPayload(keys.length, payload.length);
+        if (keys.length > 1) {
+            mergeSort(keys.clone(), payload.clone(), keys, payload, 0, keys.length);
+        }
+    }
+
+    private static void mergeSort(int[] srcKeys, long[] srcPayload, int[] dstKeys, long[] dstPayload,
+            int beginIndex, int endIndex) {
+        if (endIndex - beginIndex <= MERGE_SORT_INSERTION_THRESHOLD) {
+            binaryInsertionSort(dstKeys, dstPayload, beginIndex, endIndex - 1);
+            return;
+        }
+        int midIndex = (beginIndex + endIndex) >>> 1;
+        mergeSort(dstKeys, dstPayload, srcKeys, srcPayload, beginIndex, midIndex);
+        mergeSort(dstKeys, dstPayload, srcKeys, srcPayload, midIndex, endIndex);
+
+        int i = beginIndex;
+        int j = midIndex;
+        int k = beginIndex;
+        while (i < midIndex && j < endIndex) {
+            if (srcKeys[j] < srcKeys[i]) {
+                dstKeys[k] = srcKeys[j];
+                dstPayload[k++] = srcPayload[j++];
+            } else {
+                dstKeys[k] = srcKeys[i];
+                dstPayload[k++] = srcPayload[i++];
+            }
+        }
+        if (i < midIndex) {
+            System.arraycopy(srcKeys, i, dstKeys, k, midIndex - i);
+            System.arraycopy(srcPayload, i, dstPayload, k, midIndex - i);
+        } else if (j < endIndex) {
+            System.arraycopy(srcKeys, j, dstKeys, k, endIndex - j);
+            System.arraycopy(srcPayload, j, dstPayload, k, endIndex - j);
+        }
+    }
+
+    /**
+     * 多列键值对排序 - 以keys为键稳定排序，intPayloads、longPayloads中的每一列都按同样的顺序重排。
+     * 不是归并排序：先把键与下标拼成long排序（同{@link #argsort(int[])}），从中取出排好的键与下标排列，
+     * 再逐列按排列取出到辅助数组并拷回。
+     * 
+     * 额外空间：一个long[N]（排序用，之后作为long列的辅助数组）、一个int[N]的下标排列，
+     * 有int列时再加一个int[N]的辅助数组，即共16N或12N字节，与列数无关。
+     * 
+     * @param keys         键，原地排序
+     * @param intPayloads  随键重排的int列，可为空数组
+     * @param longPayloads 随键重排的long列，可为空数组
+     */
+    public static void sortByKey(int[] keys, int[][] intPayloads, long[][] longPayloads) {
+        int length = keys.length;
+        for (int[] payload : intPayloads) {
+            checkPayload(length, payload.length);
+        }
+        for (long[] payload : longPayloads) {
+            checkPayload(length, payload.length);
+        }
+        if (length <= 1) {
+            return;
+        }
+        long[] packed = ArgSort.packAndSort(keys);
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = (int) packed[i];
+            keys[i] = (int) (packed[i] >> 32);
+        }
+
+        if (intPayloads.length > 0) {
+            int[] intBuffer = new int[length];
+            for (int[] payload : intPayloads) {
+                permute(payload, order, intBuffer);
+            }
+        }
+        for (long[] payload : longPayloads) {
+            for (int i = 0; i < length; i++) {
+                packed[i] = payload[order[i]];
+            }
+            System.arraycopy(packed, 0, payload, 0, length);
+        }
+    }
+
+    /**
+     * 按下标排列原地重排column，buffer为辅助数组
+     */
+    private static void permute(int[] column, int[] order, int[] buffer) {
+        for (int i = 0; i < order.length; i++) {
+            buffer[i] = column[order[i]];
+        }
+        System.arraycopy(buffer, 0, column, 0, order.length);
+    }
+
+    private static void checkPayload(int keyLength, int payloadLength) {
+        if (payloadLength != keyLength) {
+            throw new IllegalArgumentException("payload length " + payloadLength + " != key length " + keyLength);
+        }
+    }
+
+    /**
+     * 检查键值对快速排序的参数：payload不短于keys，非空区间[beginIndex, endIndex]位于keys内。
+     * 须在排序前检查，否则越界异常发生在划分中途，键与数据已经错位
+     */
+    private static void checkPayload(int keyLength, int payloadLength, int beginIndex, int endIndex) {
+        if (payloadLength < keyLength) {
+            throw new IllegalArgumentException("payload length " + payloadLength + " < key length " + keyLength);
+        }
+        if (beginIndex <= endIndex) {
+            checkRange(keyLength, beginIndex, endIndex + 1);
+        }
+    }
+
+    /**
+     * 并行归并排序 - 基于ForkJoinPool的归并排序，左右两半并行排序，合并阶段同样并行：
+     * 取较长有序区间的中位元素，在另一有序区间中二分查找其位置，把一次合并拆成两个互不相干的子合并。
+     * 全程只分配一个辅助数组，两半在原数组与辅助数组之间交替读写。实现见{@link ParallelMergeSort}。
+     * 
+     * 时间复杂度：O(NlogN) 稳定性：稳定
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void parallelMergeSort(int[] nums) {
+        parallelMergeSort(nums, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    /**
+     * 并行归并排序，见{@link #parallelMergeSort(int[])}
+     * 
+     * @param nums      要排序的数组，原地排序
+     * @param threshold 区间长度不超过该值时转为顺序排序/顺序合并
+     */
+    public static void parallelMergeSort(int[] nums, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        if (nums.length <= 1) {
+            return;
+        }
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("parallelMergeSort", nums.length);
+        try {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated((long) nums.length * Integer.BYTES);
+            }
+            if (nums.length <= threshold || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+                mergeSort(nums.clone(), nums, 0, nums.length);
+                return;
+            }
+            ParallelMergeSort.sort(ForkJoinPool.commonPool(), nums.clone(), nums, 0, nums.length, threshold, null);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 分段排序 - 对首尾相接存放在values中的大量小数组逐段排序，第i段为values[offsets[i], offsets[i + 1])。
+     * 一次调用处理所有段，逐段按长度选择算法并共用辅助数组，省去逐个调用排序方法的开销，详见{@link SegmentedSort}。
+     * 
+     * @param values  首尾相接的各段数据，各段原地排序，段之外的元素不变
+     * @param offsets 各段的起始位置，最后一个元素为最后一段的结束位置，需单调不减
+     */
+    public static void segmentedSort(int[] values, int[] offsets) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("segmentedSort", values.length);
+        try {
+            SegmentedSort.sort(values, offsets, null);
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 并行分段排序，按元素个数把各段均分给ForkJoinPool中的任务，见{@link #segmentedSort(int[], int[])}
+     * 
+     * @param values  首尾相接的各段数据，各段原地排序，段之外的元素不变
+     * @param offsets 各段的起始位置，最后一个元素为最后一段的结束位置，需单调不减
+     */
+    public static void parallelSegmentedSort(int[] values, int[] offsets) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("parallelSegmentedSort", values.length);
+        try {
+            SegmentedSort.sort(values, offsets, ForkJoinPool.commonPool());
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    /**
+     * 并行样本排序 - 按过采样选出的分隔值把数组并行地分配到值域互不相交的桶中，再在ForkJoinPool中并行排序各个桶，
+     * 不存在顺序执行的O(N)划分阶段，详见{@link SampleSort}。长度较小或只有一个线程时改用快速排序。
+     * 
+     * 时间复杂度：O(NlogN) 稳定性：不稳定
+     * 
+     * @param nums 要排序的数组，原地排序
+     */
+    public static void parallelSampleSort(int[] nums) {
+        boolean root = SortMetrics.ENABLED && SortMetrics.begin("parallelSampleSort", nums.length);
+        try {
+            SampleSort.sort(nums, ForkJoinPool.commonPool());
+        } finally {
+            if (root) {
+                SortMetrics.end();
+            }
+        }
+    }
+
+    private static void printNums(int[] nums) {
+        // 只是初始容量，数组很长时不必一次预留，也避免乘法溢出
+        StringBuilder builder = new StringBuilder((int) Math.min((long) nums.length * 4, 1 << 20));
+        for (int i = 0; i < nums.length; i++) {
+            if (i > 0) {
+                builder.append(',');
             }
+            builder.append(nums[i]);
         }
+        System.out.println(builder);
     }
 }
\ No newline at end of file
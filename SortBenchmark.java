@@ -0,0 +1,381 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Java 语言: 排序算法性能测试
+ *
+ * 用法：
+ *
+ * <pre>
+ * java SortBenchmark [最大长度] [算法名过滤] [分布名过滤]   对所有算法、所有分布、16到最大长度的各种长度计时
+ * java SortBenchmark distinct [数组长度]                   对不同取值个数（2、16、1024）比较各种划分方式
+ * java SortBenchmark cutoff [数组长度]                     比较快速排序、归并排序改用插入排序的不同区间长度
+ * java SortBenchmark scaling [数组长度] [最大线程数]        以1、2、4……个线程比较各并行算法的耗时与加速比
+ * </pre>
+ *
+ * 每项测试先预热若干轮，再取多轮耗时的中位数；较短的数组一轮内连续排序多份副本以摊薄计时开销。
+ * 同时统计测试期间所有线程的堆分配字节数（HotSpot的ThreadMXBean），折算为每次排序的分配量与分配速率，
+ * 用以发现额外的内存分配。Arrays.sort与Arrays.parallelSort作为基准参与比较。
+ */
+public class SortBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 7;
+    private static final int[] DISTINCT_COUNTS = { 2, 16, 1024 };
+    private static final int[] SIZES = { 16, 256, 4096, 65536, 1_000_000, 10_000_000, 100_000_000 };
+    private static final String[] DISTRIBUTIONS = { "random", "sorted", "reverse", "sawtooth", "fewUnique",
+            "mostlySorted" };
+
+    /**
+     * 较短的数组一轮内至少排序这么多个元素（多份副本）
+     */
+    private static final int MIN_ELEMENTS_PER_ROUND = 1 << 18;
+
+    /**
+     * O(N2)算法参与测试的最大长度
+     */
+    private static final int QUADRATIC_MAX_SIZE = 4096;
+
+    /**
+     * 插入排序区间长度阈值的候选值
+     */
+    private static final int[] CUTOFFS = { 8, 12, 16, 24, 32, 48, 64, 96, 128 };
+
+    /**
+     * 待测的排序算法，对数组原地排序
+     */
+    interface Engine {
+        void sort(int[] nums);
+    }
+
+    /**
+     * 一个参与测试的算法及其参与测试的最大长度
+     */
+    private static final class Candidate {
+        final String name;
+        final Engine engine;
+        final int maxSize;
+
+        Candidate(String name, Engine engine, int maxSize) {
+            this.name = name;
+            this.engine = engine;
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * 一项测试的结果
+     */
+    private static final class Result {
+        final double millis;
+        final double bytesPerSort;
+
+        Result(double millis, double bytesPerSort) {
+            this.millis = millis;
+            this.bytesPerSort = bytesPerSort;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("distinct")) {
+            runDistinct(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 22);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("cutoff")) {
+            runCutoff(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("cutoff-child")) {
+            runCutoffChild(Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("scaling")) {
+            runScaling(args.length > 1 ? Integer.parseInt(args[1]) : 1 << 24,
+                    args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("scaling-child")) {
+            runScalingChild(Integer.parseInt(args[1]));
+            return;
+        }
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String engineFilter = args.length > 1 ? args[1] : "";
+        String distributionFilter = args.length > 2 ? args[2] : "";
+
+        System.out.printf("%-22s %-13s %10s %14s %10s %14s %12s\n", "算法", "分布", "长度", "ms/op", "ns/元素",
+                "B/op", "MB/s");
+        for (int size : SIZES) {
+            if (size > maxSize) {
+                break;
+            }
+            for (String distribution : DISTRIBUTIONS) {
+                if (!distribution.contains(distributionFilter)) {
+                    continue;
+                }
+                int[] input = generate(distribution, size, new Random(size));
+                for (Candidate candidate : candidates()) {
+                    if (size > candidate.maxSize || !candidate.name.contains(engineFilter)) {
+                        continue;
+                    }
+                    Result result = measure(candidate.engine, input);
+                    System.out.printf("%-22s %-13s %10d %14.4f %10.2f %14.0f %12.1f\n", candidate.name,
+                            distribution, size, result.millis, result.millis * 1e6 / size, result.bytesPerSort,
+                            result.bytesPerSort / 1e6 / (result.millis / 1e3));
+                }
+            }
+        }
+    }
+
+    /**
+     * 参与测试的全部算法
+     */
+    private static List<Candidate> candidates() {
+        List<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate("Arrays.sort", Arrays::sort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("Arrays.parallelSort", Arrays::parallelSort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("insertionSort", Sort::insertionSort, QUADRATIC_MAX_SIZE));
+        candidates.add(new Candidate("binaryInsertionSort",
+                nums -> Sort.binaryInsertionSort(nums, 0, nums.length - 1), QUADRATIC_MAX_SIZE));
+        candidates.add(new Candidate("bubbleSort", Sort::bubbleSort, QUADRATIC_MAX_SIZE));
+        candidates.add(new Candidate("selectionSort", Sort::selectionSort, QUADRATIC_MAX_SIZE));
+        candidates.add(new Candidate("quickSort", nums -> Sort.quickSort(nums, 0, nums.length - 1),
+                Integer.MAX_VALUE));
+        candidates.add(new Candidate("quickSort3Way", nums -> Sort.quickSort3Way(nums, 0, nums.length - 1),
+                Integer.MAX_VALUE));
+        candidates.add(new Candidate("dualPivotQuickSort",
+                nums -> Sort.dualPivotQuickSort(nums, 0, nums.length - 1), Integer.MAX_VALUE));
+        candidates.add(new Candidate("mergeSort",
+                nums -> System.arraycopy(Sort.mergeSort(nums), 0, nums, 0, nums.length), Integer.MAX_VALUE));
+        candidates.add(new Candidate("timSort", Sort::timSort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("blockMergeSort", Sort::blockMergeSort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("parallelMergeSort", Sort::parallelMergeSort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("parallelSampleSort", Sort::parallelSampleSort, Integer.MAX_VALUE));
+        candidates.add(new Candidate("sortAuto", Sort::sortAuto, Integer.MAX_VALUE));
+        candidates.add(new Candidate("radixSortLSD", Sort::radixSortLSD, Integer.MAX_VALUE));
+        candidates.add(new Candidate("radixSortLSD(parallel)", nums -> Sort.radixSortLSD(nums, true),
+                Integer.MAX_VALUE));
+        candidates.add(new Candidate("radixSortMSD", Sort::radixSortMSD, Integer.MAX_VALUE));
+        return candidates;
+    }
+
+    /**
+     * 对不同取值个数的数组比较单基准、三路、双基准快速排序
+     */
+    private static void runDistinct(int size) {
+        String[] names = { "quickSort", "quickSort3Way", "dualPivotQuickSort" };
+        Engine[] engines = { nums -> Sort.quickSort(nums, 0, nums.length - 1),
+                nums -> Sort.quickSort3Way(nums, 0, nums.length - 1),
+                nums -> Sort.dualPivotQuickSort(nums, 0, nums.length - 1) };
+
+        System.out.printf("== 数组长度: %d\n", size);
+        for (int distinct : DISTINCT_COUNTS) {
+            int[] input = fewUnique(size, distinct, new Random(distinct));
+            for (int i = 0; i < engines.length; i++) {
+                System.out.printf("%-20s 不同取值: %-6d %10.3f ms\n", names[i], distinct,
+                        measure(engines[i], input).millis);
+            }
+        }
+    }
+
+    /**
+     * 插入排序阈值是类初始化时读取的常量，每个候选值启动一个子JVM测试，避免同一JVM中的阈值变量妨碍JIT优化
+     */
+    private static void runCutoff(int size) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        System.out.printf("== 数组长度: %d\n", size);
+        for (int cutoff : CUTOFFS) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", classPath,
+                    "-Dsort.quickSortInsertionThreshold=" + cutoff, "-Dsort.mergeSortInsertionThreshold=" + cutoff,
+                    "SortBenchmark", "cutoff-child", String.valueOf(size));
+            builder.inheritIO();
+            try {
+                builder.start().waitFor();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 并行算法都使用公共线程池，其并行度只能在JVM启动时通过系统属性指定，每个线程数启动一个子JVM测试
+     */
+    private static void runScaling(int size, int maxThreads) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        System.out.printf("== 数组长度: %d, CPU: %d\n", size, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1;; threads = Math.min(threads * 2, maxThreads)) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", classPath,
+                    "-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + threads, "SortBenchmark",
+                    "scaling-child", String.valueOf(size));
+            builder.inheritIO();
+            try {
+                builder.start().waitFor();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 在子JVM中以当前公共线程池并行度测试各并行算法，加速比相对同一JVM中的顺序快速排序
+     */
+    private static void runScalingChild(int size) {
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        String[] names = { "Arrays.parallelSort", "parallelSampleSort", "parallelMergeSort",
+                "radixSortLSD(parallel)" };
+        Engine[] engines = { Arrays::parallelSort, Sort::parallelSampleSort, Sort::parallelMergeSort,
+                nums -> Sort.radixSortLSD(nums, true) };
+        int[] input = generate("random", size, new Random(size));
+        double sequential = measure(nums -> Sort.quickSort(nums, 0, nums.length - 1), input).millis;
+        for (int i = 0; i < engines.length; i++) {
+            double millis = measure(engines[i], input).millis;
+            System.out.printf("线程: %-4d %-24s %12.3f ms  加速比 %6.2f\n", threads, names[i], millis,
+                    sequential / millis);
+        }
+    }
+
+    /**
+     * 在子JVM中以当前阈值测试各算法对随机数组和基本有序数组的耗时
+     */
+    private static void runCutoffChild(int size) {
+        String cutoff = System.getProperty("sort.quickSortInsertionThreshold");
+        String[] names = { "quickSort", "dualPivotQuickSort", "mergeSort" };
+        Engine[] engines = { nums -> Sort.quickSort(nums, 0, nums.length - 1),
+                nums -> Sort.dualPivotQuickSort(nums, 0, nums.length - 1),
+                nums -> System.arraycopy(Sort.mergeSort(nums), 0, nums, 0, nums.length) };
+        for (String distribution : new String[] { "random", "mostlySorted" }) {
+            int[] input = generate(distribution, size, new Random(size));
+            for (int i = 0; i < engines.length; i++) {
+                System.out.printf("阈值: %-4s %-20s %-13s %10.3f ms\n", cutoff, names[i], distribution,
+                        measure(engines[i], input).millis);
+            }
+        }
+    }
+
+    /**
+     * 按名称生成给定分布的数组
+     */
+    static int[] generate(String distribution, int size, Random random) {
+        int[] nums = new int[size];
+        switch (distribution) {
+        case "random":
+            for (int i = 0; i < size; i++) {
+                nums[i] = random.nextInt();
+            }
+            break;
+        case "sorted":
+            for (int i = 0; i < size; i++) {
+                nums[i] = i;
+            }
+            break;
+        case "reverse":
+            for (int i = 0; i < size; i++) {
+                nums[i] = size - i;
+            }
+            break;
+        case "sawtooth":
+            // 长度约为sqrt(N)的若干升序段
+            int tooth = Math.max(2, (int) Math.sqrt(size));
+            for (int i = 0; i < size; i++) {
+                nums[i] = i % tooth;
+            }
+            break;
+        case "fewUnique":
+            return fewUnique(size, 16, random);
+        case "mostlySorted":
+            // 有序数组中1%的位置被替换为随机值
+            for (int i = 0; i < size; i++) {
+                nums[i] = i;
+            }
+            for (int i = size / 100; i > 0; i--) {
+                nums[random.nextInt(size)] = random.nextInt(size);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("unknown distribution: " + distribution);
+        }
+        return nums;
+    }
+
+    /**
+     * 生成取值在[0, distinct)内均匀分布的数组
+     */
+    static int[] fewUnique(int size, int distinct, Random random) {
+        int[] nums = new int[size];
+        for (int i = 0; i < size; i++) {
+            nums[i] = random.nextInt(distinct);
+        }
+        return nums;
+    }
+
+    /**
+     * 预热后多轮对输入的副本排序（副本的拷贝不计时），返回单次排序耗时的中位数及平均分配量
+     */
+    private static Result measure(Engine engine, int[] input) {
+        int copies = Math.max(1, MIN_ELEMENTS_PER_ROUND / Math.max(1, input.length));
+        int[][] work = new int[copies][input.length];
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound(engine, input, work);
+        }
+        long[] elapsed = new long[MEASURE_ROUNDS];
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            elapsed[i] = runRound(engine, input, work);
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+        Arrays.sort(elapsed);
+        return new Result(elapsed[MEASURE_ROUNDS / 2] / 1e6 / copies, (double) allocated / MEASURE_ROUNDS / copies);
+    }
+
+    /**
+     * 把输入拷贝到每份副本中，再连续排序所有副本
+     *
+     * @return 排序所用纳秒数
+     */
+    private static long runRound(Engine engine, int[] input, int[][] work) {
+        for (int[] nums : work) {
+            System.arraycopy(input, 0, nums, 0, input.length);
+        }
+        long start = System.nanoTime();
+        for (int[] nums : work) {
+            engine.sort(nums);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 所有存活线程至今累计分配的堆内存字节数，JVM不支持时返回0
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        long total = 0;
+        for (long allocated : hotspot.getThreadAllocatedBytes(hotspot.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+}
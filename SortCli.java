@@ -0,0 +1,331 @@
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 命令行排序工具 - 从文件或标准输入读入整数，排序后写到文件或标准输出。
+ *
+ * 用法：java SortCli [-e 算法] [-b] [-order big|little] [-o 输出文件] [文件...]
+ * （也可通过java Sort加同样的参数调用）。没有文件或文件为“-”时读标准输入。
+ *
+ * 文本格式：以空白或逗号分隔的十进制int，可带正负号，输出每行一个；
+ * 二进制格式（-b）：连续的4字节int，字节序默认为大端，与{@link ExternalSort}一致。
+ *
+ * 输入按字节直接解析，不经过Reader、String与Integer.parseInt；输出先把数字逐位写入一块大缓冲区，
+ * 写满后一次写入通道。整个输入需能放入内存，更大的二进制文件用{@link ExternalSort}排序。
+ */
+public final class SortCli {
+
+    /**
+     * 读写缓冲区的字节数
+     */
+    private static final int BUFFER_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * 数组长度上限，部分虚拟机无法分配长度接近Integer.MAX_VALUE的数组
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * 可选的排序算法，键为-e的参数
+     */
+    private static final Map<String, Consumer<int[]>> ENGINES = new LinkedHashMap<>();
+
+    static {
+        ENGINES.put("sortAuto", Sort::sortAuto);
+        ENGINES.put("quickSort", nums -> Sort.quickSort(nums, 0, nums.length - 1));
+        ENGINES.put("quickSort3Way", nums -> Sort.quickSort3Way(nums, 0, nums.length - 1));
+        ENGINES.put("dualPivotQuickSort", nums -> Sort.dualPivotQuickSort(nums, 0, nums.length - 1));
+        ENGINES.put("mergeSort", nums -> System.arraycopy(Sort.mergeSort(nums), 0, nums, 0, nums.length));
+        ENGINES.put("timSort", Sort::timSort);
+        ENGINES.put("radixSortLSD", Sort::radixSortLSD);
+        ENGINES.put("radixSortMSD", Sort::radixSortMSD);
+        ENGINES.put("parallelMergeSort", Sort::parallelMergeSort);
+        ENGINES.put("parallelSampleSort", Sort::parallelSampleSort);
+        ENGINES.put("Arrays.sort", Arrays::sort);
+    }
+
+    private SortCli() {
+    }
+
+    public static void main(String[] args) {
+        String engine = "sortAuto";
+        boolean binary = false;
+        ByteOrder order = ByteOrder.BIG_ENDIAN;
+        Path output = null;
+        List<String> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-e":
+                    engine = argument(args, ++i);
+                    if (!ENGINES.containsKey(engine)) {
+                        throw new IllegalArgumentException("未知的算法: " + engine + "，可选: " + ENGINES.keySet());
+                    }
+                    break;
+                case "-b":
+                    binary = true;
+                    break;
+                case "-order":
+                    String name = argument(args, ++i);
+                    if (name.equals("big")) {
+                        order = ByteOrder.BIG_ENDIAN;
+                    } else if (name.equals("little")) {
+                        order = ByteOrder.LITTLE_ENDIAN;
+                    } else {
+                        throw new IllegalArgumentException("未知的字节序: " + name);
+                    }
+                    break;
+                case "-o":
+                    output = Paths.get(argument(args, ++i));
+                    break;
+                case "-h":
+                    usage();
+                    return;
+                default:
+                    if (args[i].startsWith("-") && args[i].length() > 1) {
+                        throw new IllegalArgumentException("未知的选项: " + args[i]);
+                    }
+                    inputs.add(args[i]);
+                }
+            }
+            if (inputs.isEmpty()) {
+                inputs.add("-");
+            }
+
+            IntArray nums = new IntArray();
+            for (String input : inputs) {
+                if (input.equals("-")) {
+                    // 标准输入的通道不关闭：关闭通道会一并关闭进程的文件描述符，之后再读标准输入就会失败
+                    readInput(new FileInputStream(FileDescriptor.in).getChannel(), binary, order, nums, input);
+                } else {
+                    try (FileChannel channel = FileChannel.open(Paths.get(input))) {
+                        readInput(channel, binary, order, nums, input);
+                    }
+                }
+            }
+            int[] sorted = nums.toArray();
+            ENGINES.get(engine).accept(sorted);
+            if (output == null) {
+                // 标准输出同样不关闭；先清空System.out中已缓冲的内容，保持输出的先后顺序
+                System.out.flush();
+                writeOutput(new FileOutputStream(FileDescriptor.out).getChannel(), binary, order, sorted);
+            } else {
+                try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    writeOutput(channel, binary, order, sorted);
+                }
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("sort: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void readInput(ReadableByteChannel channel, boolean binary, ByteOrder order, IntArray nums,
+            String name) throws IOException {
+        if (binary) {
+            readBinary(channel, order, nums);
+        } else {
+            readText(channel, nums, name);
+        }
+    }
+
+    private static void writeOutput(WritableByteChannel channel, boolean binary, ByteOrder order, int[] nums)
+            throws IOException {
+        if (binary) {
+            writeBinary(channel, order, nums);
+        } else {
+            writeText(channel, nums);
+        }
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " 缺少参数");
+        }
+        return args[index];
+    }
+
+    private static void usage() {
+        System.out.println("用法: java SortCli [-e 算法] [-b] [-order big|little] [-o 输出文件] [文件...]");
+        System.out.println("  -e      排序算法，默认sortAuto，可选: " + String.join(", ", ENGINES.keySet()));
+        System.out.println("  -b      按二进制读写，每个int占4字节");
+        System.out.println("  -order  二进制的字节序，默认big");
+        System.out.println("  -o      输出文件，默认标准输出");
+        System.out.println("  文件    输入文件，默认或为-时读标准输入");
+    }
+
+    /**
+     * 按字节解析以空白或逗号分隔的十进制int。数字可以跨越两次读取，解析状态保存在循环外
+     *
+     * @param name 输入的名称，用于错误信息
+     */
+    static void readText(ReadableByteChannel channel, IntArray nums, String name) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        byte[] bytes = buffer.array();
+        long position = 0; // 已处理的字节数
+        long value = 0; // 当前数字的绝对值
+        int digits = 0; // 当前数字已读到的位数
+        boolean negative = false;
+        boolean signed = false; // 是否已读到正负号
+        int read;
+        while ((read = channel.read(buffer)) >= 0) {
+            if (read == 0) {
+                continue;
+            }
+            for (int i = 0; i < read; i++) {
+                int b = bytes[i];
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                        throw new IllegalArgumentException(name + ": 第" + (position + i) + "字节处的数字超出int范围");
+                    }
+                    digits++;
+                } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',') {
+                    if (digits > 0) {
+                        nums.add((int) (negative ? -value : value));
+                    } else if (signed) {
+                        throw new IllegalArgumentException(name + ": 第" + (position + i) + "字节处的正负号后缺少数字");
+                    }
+                    value = 0;
+                    digits = 0;
+                    negative = false;
+                    signed = false;
+                } else if ((b == '-' || b == '+') && digits == 0 && !signed) {
+                    negative = b == '-';
+                    signed = true;
+                } else {
+                    throw new IllegalArgumentException(name + ": 第" + (position + i) + "字节处不是数字: " + (char) (b & 0xff));
+                }
+            }
+            position += read;
+            buffer.clear();
+        }
+        if (digits > 0) {
+            nums.add((int) (negative ? -value : value));
+        } else if (signed) {
+            throw new IllegalArgumentException(name + ": 结尾的正负号后缺少数字");
+        }
+    }
+
+    /**
+     * 读入连续的4字节int，不足4字节的尾部留到下一次读取
+     */
+    static void readBinary(ReadableByteChannel channel, ByteOrder order, IntArray nums) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(order);
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            int count = buffer.remaining() / Integer.BYTES;
+            nums.ensureCapacity(count);
+            buffer.asIntBuffer().get(nums.values, nums.size, count);
+            nums.size += count;
+            buffer.position(count * Integer.BYTES);
+            buffer.compact();
+        }
+        if (buffer.position() > 0) {
+            throw new IllegalArgumentException("输入长度不是4的倍数");
+        }
+    }
+
+    /**
+     * 每行写一个数字：从个位开始倒序写入临时数组，再整体复制到输出缓冲区
+     */
+    static void writeText(WritableByteChannel channel, int[] nums) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        byte[] bytes = buffer.array();
+        byte[] digits = new byte[12];
+        int position = 0;
+        for (int num : nums) {
+            if (position > bytes.length - digits.length) {
+                buffer.limit(position);
+                write(channel, buffer);
+                position = 0;
+            }
+            // 按负数处理，Integer.MIN_VALUE取反会溢出
+            int negative = num < 0 ? num : -num;
+            int start = digits.length;
+            digits[--start] = '\n';
+            do {
+                int quotient = negative / 10;
+                digits[--start] = (byte) ('0' + quotient * 10 - negative);
+                negative = quotient;
+            } while (negative != 0);
+            if (num < 0) {
+                digits[--start] = '-';
+            }
+            System.arraycopy(digits, start, bytes, position, digits.length - start);
+            position += digits.length - start;
+        }
+        buffer.limit(position);
+        write(channel, buffer);
+    }
+
+    static void writeBinary(WritableByteChannel channel, ByteOrder order, int[] nums) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(order);
+        int chunk = BUFFER_BYTES / Integer.BYTES;
+        for (int from = 0; from < nums.length; from += chunk) {
+            int count = Math.min(chunk, nums.length - from);
+            buffer.clear();
+            buffer.asIntBuffer().put(nums, from, count);
+            buffer.limit(count * Integer.BYTES);
+            write(channel, buffer);
+        }
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 按需倍增的int数组
+     */
+    static final class IntArray {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                ensureCapacity(1);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * 保证还能再放入count个元素
+         */
+        void ensureCapacity(int count) {
+            long required = (long) size + count;
+            if (required <= values.length) {
+                return;
+            }
+            if (required > MAX_ARRAY_LENGTH) {
+                throw new IllegalArgumentException("输入超过" + MAX_ARRAY_LENGTH + "个数字，请用ExternalSort排序");
+            }
+            values = Arrays.copyOf(values, (int) Math.min(MAX_ARRAY_LENGTH, Math.max(required, 2L * values.length)));
+        }
+
+        int[] toArray() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+}
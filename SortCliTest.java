@@ -0,0 +1,97 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Java 语言: 命令行排序工具检测
+ *
+ * 在内存中生成文本与二进制输入，检测按字节解析、格式化输出的结果，以及非法输入是否被拒绝。
+ */
+public class SortCliTest {
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(20150612);
+        int[] nums = new int[1_000_000];
+        for (int i = 0; i < nums.length; i++) {
+            nums[i] = random.nextInt();
+        }
+        nums[0] = Integer.MIN_VALUE;
+        nums[1] = Integer.MAX_VALUE;
+        nums[2] = 0;
+
+        int failures = 0;
+        // 各种分隔符混用，数字会跨越读缓冲区的边界
+        StringBuilder text = new StringBuilder();
+        String[] separators = { "\n", " ", ",", "\r\n", "\t", ", " };
+        for (int i = 0; i < nums.length; i++) {
+            if (i % 7 == 0 && nums[i] >= 0) {
+                text.append('+');
+            }
+            text.append(nums[i]).append(separators[i % separators.length]);
+        }
+        SortCli.IntArray parsed = new SortCli.IntArray();
+        SortCli.readText(channel(text.toString().getBytes(StandardCharsets.US_ASCII)), parsed, "text");
+        failures += report("readText", Arrays.equals(nums, parsed.toArray()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SortCli.writeText(Channels.newChannel(output), nums);
+        StringJoiner expected = new StringJoiner("\n", "", "\n");
+        for (int num : nums) {
+            expected.add(Integer.toString(num));
+        }
+        failures += report("writeText", expected.toString().equals(output.toString(StandardCharsets.US_ASCII)));
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            output = new ByteArrayOutputStream();
+            SortCli.writeBinary(Channels.newChannel(output), order, nums);
+            parsed = new SortCli.IntArray();
+            SortCli.readBinary(channel(output.toByteArray()), order, parsed);
+            failures += report("binary " + order, Arrays.equals(nums, parsed.toArray()));
+        }
+
+        String[] invalid = { "1 x", "2147483648", "-2147483649", "1 - 2", "3 -", "1,2+" };
+        for (String input : invalid) {
+            boolean rejected;
+            try {
+                SortCli.readText(channel(input.getBytes(StandardCharsets.US_ASCII)), new SortCli.IntArray(), "text");
+                rejected = false;
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            failures += report("拒绝 \"" + input + "\"", rejected);
+        }
+
+        // 连续两次写标准输出：标准输出不能被第一次调用关闭
+        Path file = Files.createTempFile("SortCliTest", ".txt");
+        try {
+            Files.write(file, "3 1 2".getBytes(StandardCharsets.US_ASCII));
+            SortCli.main(new String[] { file.toString() });
+            SortCli.main(new String[] { file.toString() });
+            System.out.println();
+            failures += report("标准输出未关闭", !System.out.checkError());
+        } finally {
+            Files.delete(file);
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static ReadableByteChannel channel(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    private static int report(String name, boolean passed) {
+        System.out.printf("== %s: %s\n", name, passed ? "通过" : "失败");
+        return passed ? 0 : 1;
+    }
+}
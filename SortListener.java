@@ -0,0 +1,22 @@
+/**
+ * 排序指标的接收方，通过{@link SortMetrics#addListener(SortListener)}注册。
+ * 只有以-Dsort.metrics=true启动时才会收到回调，回调在执行排序的线程中同步调用，应尽快返回。
+ */
+public interface SortListener {
+
+    /**
+     * 一次排序结束时调用，嵌套调用的排序算法（如基数排序对小数组改用快速排序）计入最外层的这一次
+     *
+     * @param report 本次排序的各项指标
+     */
+    void onSortFinished(SortMetrics.Report report);
+
+    /**
+     * {@link Sort#sortAuto(int[])}选定算法时调用，除插入排序外，随后该算法结束时还会调用{@link #onSortFinished(SortMetrics.Report)}
+     *
+     * @param engine 选定的算法，输入已有序时为none
+     * @param reason 选择的依据，如输入长度、有序程度、取值范围、样本中不同取值的个数
+     */
+    default void onEngineSelected(String engine, String reason) {
+    }
+}
@@ -0,0 +1,293 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 排序指标 - 统计比较次数、交换与移动次数、划分深度、堆排序兜底次数、辅助数组分配的字节数以及各阶段耗时，
+ * 每次排序结束时通过{@link SortListener}报告，用于判断变慢的原因是快速排序退化还是输入的有序程度发生了变化。
+ *
+ * 以-Dsort.metrics=true启动时才生效。{@link #ENABLED}为static final常量，Sort中所有埋点都写成
+ * {@code if (SortMetrics.ENABLED) ...}，关闭时JIT把这些分支连同其中的计数一起消除，热循环中没有额外的调用。
+ * 开启后每个埋点需读取一次ThreadLocal，排序会明显变慢，只适合排查问题时使用。
+ *
+ * 指标按线程记录：并行算法在ForkJoinPool工作线程中完成的比较与移动不计入，只统计调用线程上的部分及各阶段耗时。
+ */
+public final class SortMetrics {
+
+    /**
+     * 是否开启指标统计，由系统属性sort.metrics决定
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("sort.metrics");
+
+    private static final ThreadLocal<Recorder> CURRENT = new ThreadLocal<>();
+
+    private static final List<SortListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private SortMetrics() {
+    }
+
+    /**
+     * 注册监听器，未开启统计时不会收到任何回调
+     */
+    public static void addListener(SortListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(SortListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * 开始记录一次排序。当前线程已在记录时（排序算法内部调用了另一个排序算法）不另起记录
+     *
+     * @return 是否为最外层，最外层结束时需调用{@link #end()}
+     */
+    static boolean begin(String engine, int length) {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(new Recorder(engine, length));
+        return true;
+    }
+
+    /**
+     * 结束当前线程的记录，并把报告交给所有监听器
+     */
+    static void end() {
+        Recorder recorder = CURRENT.get();
+        CURRENT.remove();
+        Report report = new Report(recorder, System.nanoTime() - recorder.startNanos);
+        for (SortListener listener : LISTENERS) {
+            listener.onSortFinished(report);
+        }
+    }
+
+    /**
+     * 通知所有监听器自动选择的算法及理由
+     */
+    static void engineSelected(String engine, String reason) {
+        for (SortListener listener : LISTENERS) {
+            listener.onEngineSelected(engine, reason);
+        }
+    }
+
+    static void compared(long count) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.comparisons += count;
+        }
+    }
+
+    static void swapped(long count) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.swaps += count;
+        }
+    }
+
+    static void moved(long count) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.moves += count;
+        }
+    }
+
+    static void allocated(long bytes) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.allocatedBytes += bytes;
+        }
+    }
+
+    /**
+     * 记录内省排序的初始深度限制，之后{@link #depth(int)}以剩余的深度限制换算出当前划分深度
+     */
+    static void depthLimit(int depthLimit) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.depthLimit = depthLimit;
+        }
+    }
+
+    /**
+     * 内省排序每次划分前调用
+     *
+     * @param remaining 本次划分后剩余的深度限制
+     */
+    static void depth(int remaining) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.maxDepth = Math.max(recorder.maxDepth, recorder.depthLimit - remaining);
+        }
+    }
+
+    /**
+     * 内省排序递归过深、改用堆排序时调用
+     */
+    static void heapSortFallback() {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.heapSortFallbacks++;
+        }
+    }
+
+    /**
+     * 累加一个阶段的耗时
+     *
+     * @param phase      阶段名
+     * @param startNanos 阶段开始时的System.nanoTime()
+     */
+    static void phase(String phase, long startNanos) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.phaseNanos.merge(phase, System.nanoTime() - startNanos, Long::sum);
+        }
+    }
+
+    /**
+     * 开启统计时返回System.nanoTime()，否则返回0，作为{@link #phase(String, long)}的起点
+     */
+    static long now() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 一次排序过程中累计的计数
+     */
+    private static final class Recorder {
+        final String engine;
+        final int length;
+        final long startNanos = System.nanoTime();
+        final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        long comparisons;
+        long swaps;
+        long moves;
+        long allocatedBytes;
+        int depthLimit;
+        int maxDepth;
+        int heapSortFallbacks;
+
+        Recorder(String engine, int length) {
+            this.engine = engine;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 一次排序的指标报告
+     */
+    public static final class Report {
+        private final String engine;
+        private final int length;
+        private final long comparisons;
+        private final long swaps;
+        private final long moves;
+        private final long allocatedBytes;
+        private final int maxDepth;
+        private final int heapSortFallbacks;
+        private final long elapsedNanos;
+        private final Map<String, Long> phaseNanos;
+
+        private Report(Recorder recorder, long elapsedNanos) {
+            this.engine = recorder.engine;
+            this.length = recorder.length;
+            this.comparisons = recorder.comparisons;
+            this.swaps = recorder.swaps;
+            this.moves = recorder.moves;
+            this.allocatedBytes = recorder.allocatedBytes;
+            this.maxDepth = recorder.maxDepth;
+            this.heapSortFallbacks = recorder.heapSortFallbacks;
+            this.elapsedNanos = elapsedNanos;
+            this.phaseNanos = Collections.unmodifiableMap(recorder.phaseNanos);
+        }
+
+        /**
+         * 最外层排序算法的名称
+         */
+        public String engine() {
+            return engine;
+        }
+
+        /**
+         * 排序的元素个数
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * 元素之间（或元素与基准之间）的比较次数，双基准快速排序划分阶段的比较不计入
+         */
+        public long comparisons() {
+            return comparisons;
+        }
+
+        /**
+         * 交换两个元素的次数
+         */
+        public long swaps() {
+            return swaps;
+        }
+
+        /**
+         * 交换以外写入元素的次数，包括插入排序的整体后移、归并与基数排序的分配
+         */
+        public long moves() {
+            return moves;
+        }
+
+        /**
+         * 辅助数组分配的字节数
+         */
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * 内省排序达到的最大划分深度，均衡划分时约为logN，接近深度限制2logN时说明输入使划分失衡
+         */
+        public int maxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * 内省排序改用堆排序的次数，不为0说明快速排序已经退化
+         */
+        public int heapSortFallbacks() {
+            return heapSortFallbacks;
+        }
+
+        /**
+         * 总耗时（纳秒）
+         */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 各阶段耗时（纳秒），按首次出现的顺序
+         */
+        public Map<String, Long> phaseNanos() {
+            return phaseNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(engine).append(" n=").append(length)
+                    .append(" comparisons=").append(comparisons)
+                    .append(" swaps=").append(swaps)
+                    .append(" moves=").append(moves)
+                    .append(" allocated=").append(allocatedBytes)
+                    .append(" maxDepth=").append(maxDepth)
+                    .append(" heapSortFallbacks=").append(heapSortFallbacks)
+                    .append(String.format(" elapsed=%.3fms", elapsedNanos / 1e6));
+            for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+                builder.append(String.format(" %s=%.3fms", phase.getKey(), phase.getValue() / 1e6));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,577 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Java 语言: 排序算法正确性检测
+ *
+ * 用随机数据与各种有序程度的数据分别调用各排序算法，并与Arrays.sort的结果比较。
+ */
+public class SortTest {
+
+    private static final int[] SIZES = { 0, 1, 2, 3, 15, 100, 1000, 100000 };
+    private static final Random RANDOM = new Random(20131107);
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        // 公共线程池的并行度为1时各并行排序都退化为顺序路径，须在首次使用公共线程池之前指定并行度
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+        checkTrue("commonPoolParallelism", ForkJoinPool.getCommonPoolParallelism(),
+                ForkJoinPool.getCommonPoolParallelism() > 1);
+
+        for (int size : SIZES) {
+            for (int[] input : inputs(size)) {
+                int[] expected = input.clone();
+                Arrays.sort(expected);
+
+                check("mergeSort", input, expected, Sort.mergeSort(input));
+
+                int[] nums = input.clone();
+                Sort.quickSort(nums, 0, nums.length - 1);
+                check("quickSort", input, expected, nums);
+
+                nums = input.clone();
+                Sort.quickSort3Way(nums, 0, nums.length - 1);
+                check("quickSort3Way", input, expected, nums);
+
+                nums = input.clone();
+                Sort.dualPivotQuickSort(nums, 0, nums.length - 1);
+                check("dualPivotQuickSort", input, expected, nums);
+
+                nums = input.clone();
+                Sort.radixSortLSD(nums);
+                check("radixSortLSD", input, expected, nums);
+
+                nums = input.clone();
+                Sort.radixSortLSD(nums, true);
+                check("radixSortLSD(parallel)", input, expected, nums);
+
+                nums = input.clone();
+                Sort.radixSortMSD(nums);
+                check("radixSortMSD", input, expected, nums);
+
+                nums = input.clone();
+                Sort.timSort(nums);
+                check("timSort", input, expected, nums);
+
+                nums = input.clone();
+                Sort.blockMergeSort(nums);
+                check("blockMergeSort", input, expected, nums);
+
+                if (input.length > 0) {
+                    checkSelection(input, expected);
+                }
+
+                nums = input.clone();
+                Sort.parallelMergeSort(nums, 64);
+                check("parallelMergeSort", input, expected, nums);
+
+                nums = input.clone();
+                Sort.parallelMergeSort(nums, 1);
+                check("parallelMergeSort(threshold=1)", input, expected, nums);
+
+                nums = input.clone();
+                Sort.parallelSampleSort(nums);
+                check("parallelSampleSort", input, expected, nums);
+
+                nums = input.clone();
+                Sort.sortAuto(nums);
+                check("sortAuto", input, expected, nums);
+            }
+        }
+
+        for (int size : SIZES) {
+            checkCoSort(size);
+            checkArgsort(size);
+            checkPrimitives(size);
+            checkObjects(size);
+            checkBuffers(size);
+        }
+        checkSortingNetwork();
+        checkSampleSort();
+        checkSegmentedSort();
+        checkMetrics();
+
+        if (failures == 0) {
+            System.out.printf("== 全部通过\n");
+        } else {
+            System.out.printf("== 失败 %d 项\n", failures);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 生成给定长度的多种分布的测试数据：随机、升序、降序、少量不同值、锯齿、"管风琴"、基本有序
+     */
+    private static int[][] inputs(int size) {
+        int[] random = new int[size];
+        int[] ascending = new int[size];
+        int[] descending = new int[size];
+        int[] fewUnique = new int[size];
+        int[] sawtooth = new int[size];
+        int[] organPipe = new int[size];
+        int[] mostlySorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            random[i] = RANDOM.nextInt();
+            ascending[i] = i;
+            descending[i] = size - i;
+            fewUnique[i] = RANDOM.nextInt(4) - 2;
+            sawtooth[i] = i % 64;
+            organPipe[i] = Math.min(i, size - i);
+            mostlySorted[i] = RANDOM.nextInt(100) == 0 ? RANDOM.nextInt() : i;
+        }
+        return new int[][] { random, ascending, descending, fewUnique, sawtooth, organPipe, mostlySorted };
+    }
+
+    /**
+     * 检测快速选择、部分排序与流式Top-K
+     */
+    private static void checkSelection(int[] input, int[] expected) {
+        int length = input.length;
+        int[] positions = { 0, length / 10, length / 2, length * 99 / 100, length - 1 };
+        for (int k : positions) {
+            int[] nums = input.clone();
+            int selected = Sort.select(nums, k);
+            boolean passed = selected == expected[k];
+            for (int i = 0; i < length && passed; i++) {
+                passed = i < k ? nums[i] <= selected : nums[i] >= selected;
+            }
+            checkTrue("select", length, passed);
+        }
+
+        int k = (length + 9) / 10;
+        int[] nums = input.clone();
+        Sort.partialSort(nums, k);
+        checkTrue("partialSort", length, Arrays.equals(Arrays.copyOf(expected, k), Arrays.copyOf(nums, k)));
+
+        IntTopK smallest = new IntTopK(k, false);
+        IntTopK largest = new IntTopK(k, true);
+        smallest.offer(input, 0, length);
+        largest.offer(input, 0, length);
+        int[] expectedLargest = new int[k];
+        for (int i = 0; i < k; i++) {
+            expectedLargest[i] = expected[length - 1 - i];
+        }
+        checkTrue("IntTopK", length, Arrays.equals(Arrays.copyOf(expected, k), smallest.toSortedArray())
+                && Arrays.equals(expectedLargest, largest.toSortedArray()));
+    }
+
+    /**
+     * 检测键值对排序：数据须随键移动，稳定的版本中键相同的数据须保持原有顺序
+     */
+    private static void checkCoSort(int size) {
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = RANDOM.nextInt(size / 4 + 1);
+        }
+        int[] expectedOrder = Sort.argsort(keys);
+
+        // 数据取原下标，排序后即为下标排列
+        int[] sortedKeys = keys.clone();
+        int[] intPayload = identity(size);
+        Sort.mergeSort(sortedKeys, intPayload);
+        checkTrue("mergeSort(int[], int[])", size, Arrays.equals(expectedOrder, intPayload));
+
+        sortedKeys = keys.clone();
+        long[] longPayload = new long[size];
+        for (int i = 0; i < size; i++) {
+            longPayload[i] = i;
+        }
+        Sort.mergeSort(sortedKeys, longPayload);
+        boolean passed = true;
+        for (int i = 0; i < size && passed; i++) {
+            passed = longPayload[i] == expectedOrder[i];
+        }
+        checkTrue("mergeSort(int[], long[])", size, passed);
+
+        sortedKeys = keys.clone();
+        intPayload = identity(size);
+        Sort.quickSort(sortedKeys, intPayload, 0, size - 1);
+        passed = true;
+        for (int i = 0; i < size && passed; i++) {
+            passed = keys[intPayload[i]] == sortedKeys[i] && (i == 0 || sortedKeys[i - 1] <= sortedKeys[i]);
+        }
+        checkTrue("quickSort(int[], int[])", size, passed);
+
+        if (size > 1) {
+            // payload过短时须在排序前拒绝，键保持原样
+            sortedKeys = keys.clone();
+            try {
+                Sort.quickSort(sortedKeys, new long[size - 1], 0, size - 1);
+                passed = false;
+            } catch (IllegalArgumentException e) {
+                passed = Arrays.equals(keys, sortedKeys);
+            }
+            checkTrue("quickSort(int[], long[]) payload check", size, passed);
+        }
+
+        sortedKeys = keys.clone();
+        int[] first = identity(size);
+        long[] second = new long[size];
+        for (int i = 0; i < size; i++) {
+            second[i] = -i;
+        }
+        Sort.sortByKey(sortedKeys, new int[][] { first }, new long[][] { second });
+        passed = Arrays.equals(expectedOrder, first);
+        for (int i = 0; i < size && passed; i++) {
+            passed = second[i] == -expectedOrder[i];
+        }
+        checkTrue("sortByKey", size, passed && Arrays.equals(Arrays.stream(expectedOrder).map(i -> keys[i]).toArray(),
+                sortedKeys));
+    }
+
+    private static int[] identity(int size) {
+        int[] nums = new int[size];
+        for (int i = 0; i < size; i++) {
+            nums[i] = i;
+        }
+        return nums;
+    }
+
+    /**
+     * 检测间接排序：按返回的下标取出的键须有序，且键相同的下标须升序（稳定）。
+     * 长度超过并行阈值时并行版本在main中指定的多线程公共线程池上走并行路径
+     */
+    private static void checkArgsort(int size) {
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        int[] secondary = new int[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = RANDOM.nextInt(size + 1) - size / 2;
+            longs[i] = ints[i] * 3L;
+            doubles[i] = ints[i] / 2.0;
+            secondary[i] = RANDOM.nextInt(3);
+        }
+        int[][] orders = { Sort.argsort(ints), Sort.parallelArgsort(ints), Sort.argsort(longs),
+                Sort.parallelArgsort(longs), Sort.argsort(doubles), Sort.parallelArgsort(doubles) };
+        for (int[] order : orders) {
+            boolean passed = order.length == size;
+            for (int i = 1; i < order.length && passed; i++) {
+                int a = order[i - 1];
+                int b = order[i];
+                passed = ints[a] < ints[b] || (ints[a] == ints[b] && a < b);
+            }
+            checkTrue("argsort", size, passed);
+        }
+
+        int[][] lexicographicOrders = { Sort.argsortLexicographic(secondary, ints),
+                Sort.parallelArgsortLexicographic(secondary, ints) };
+        for (int[] order : lexicographicOrders) {
+            int[] first = Sort.gather(secondary, order);
+            int[] second = Sort.gather(ints, order);
+            boolean passed = order.length == size;
+            for (int i = 1; i < order.length && passed; i++) {
+                passed = first[i - 1] < first[i] || (first[i - 1] == first[i]
+                        && (second[i - 1] < second[i] || (second[i - 1] == second[i] && order[i - 1] < order[i])));
+            }
+            checkTrue("argsortLexicographic", size, passed);
+        }
+    }
+
+    /**
+     * 检测long、double、short、char、byte数组的排序
+     */
+    private static void checkPrimitives(int size) {
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        short[] shorts = new short[size];
+        char[] chars = new char[size];
+        byte[] bytes = new byte[size];
+        double[] specials = { Double.NaN, -0.0d, 0.0d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY };
+        for (int i = 0; i < size; i++) {
+            longs[i] = RANDOM.nextLong();
+            doubles[i] = RANDOM.nextInt(8) == 0 ? specials[RANDOM.nextInt(specials.length)] : RANDOM.nextGaussian();
+            shorts[i] = (short) RANDOM.nextInt();
+            chars[i] = (char) RANDOM.nextInt();
+            bytes[i] = (byte) RANDOM.nextInt();
+        }
+
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        Sort.sort(longs);
+        checkTrue("sort(long[])", size, Arrays.equals(expectedLongs, longs));
+
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedDoubles);
+        Sort.sort(doubles);
+        checkTrue("sort(double[])", size, Arrays.equals(expectedDoubles, doubles));
+
+        short[] expectedShorts = shorts.clone();
+        Arrays.sort(expectedShorts);
+        Sort.sort(shorts);
+        checkTrue("sort(short[])", size, Arrays.equals(expectedShorts, shorts));
+
+        char[] expectedChars = chars.clone();
+        Arrays.sort(expectedChars);
+        Sort.sort(chars);
+        checkTrue("sort(char[])", size, Arrays.equals(expectedChars, chars));
+
+        byte[] expectedBytes = bytes.clone();
+        Arrays.sort(expectedBytes);
+        Sort.sort(bytes);
+        checkTrue("sort(byte[])", size, Arrays.equals(expectedBytes, bytes));
+    }
+
+    /**
+     * 检测对象数组与列表的排序及其稳定性：按键排序后，键相同的元素须保持原有的先后顺序
+     */
+    private static void checkObjects(int size) {
+        int[][] items = new int[size][];
+        for (int i = 0; i < size; i++) {
+            items[i] = new int[] { RANDOM.nextInt(16), i };
+        }
+        int[][] expected = items.clone();
+        Arrays.sort(expected, Comparator.comparingInt(item -> item[0]));
+
+        int[][] actual = items.clone();
+        Sort.sort(actual, Comparator.comparingInt(item -> item[0]));
+        checkTrue("sort(Object[])", size, Arrays.equals(expected, actual));
+
+        actual = items.clone();
+        Sort.blockMergeSort(actual, Comparator.comparingInt(item -> item[0]));
+        checkTrue("blockMergeSort(Object[])", size, Arrays.equals(expected, actual));
+
+        List<int[]> list = new ArrayList<>(Arrays.asList(items));
+        Sort.sortBy(list, item -> item[0]);
+        checkTrue("sortBy(List)", size, Arrays.equals(expected, list.toArray()));
+    }
+
+    /**
+     * 检测堆外排序：直接缓冲区的[position, limit)之外的元素不能被改动，两种字节序都要检测
+     */
+    private static void checkBuffers(int size) {
+        int[] ints = RANDOM.ints(size).toArray();
+        long[] longs = RANDOM.longs(size).toArray();
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int engine = 0; engine < 3; engine++) {
+                // 前后各留一个哨兵元素
+                IntBuffer intBuffer = ByteBuffer.allocateDirect((size + 2) * Integer.BYTES).order(order).asIntBuffer();
+                intBuffer.put(Integer.MIN_VALUE).put(ints).put(Integer.MIN_VALUE);
+                intBuffer.position(1).limit(size + 1);
+                LongBuffer longBuffer = ByteBuffer.allocateDirect((size + 2) * Long.BYTES).order(order).asLongBuffer();
+                longBuffer.put(Long.MIN_VALUE).put(longs).put(Long.MIN_VALUE);
+                longBuffer.position(1).limit(size + 1);
+                if (engine == 0) {
+                    BufferSort.quickSort(intBuffer);
+                    BufferSort.quickSort(longBuffer);
+                } else if (engine == 1) {
+                    BufferSort.mergeSort(intBuffer);
+                    BufferSort.mergeSort(longBuffer);
+                } else {
+                    BufferSort.radixSort(intBuffer);
+                    BufferSort.radixSort(longBuffer);
+                }
+                String name = new String[] { "quickSort", "mergeSort", "radixSort" }[engine] + "(" + order + ")";
+
+                int[] actualInts = new int[size];
+                intBuffer.get(actualInts);
+                checkTrue("BufferSort." + name + "(IntBuffer)", size, Arrays.equals(expectedInts, actualInts)
+                        && intBuffer.get(0) == Integer.MIN_VALUE && intBuffer.limit(size + 2).get(size + 1) == Integer.MIN_VALUE);
+                long[] actualLongs = new long[size];
+                longBuffer.get(actualLongs);
+                checkTrue("BufferSort." + name + "(LongBuffer)", size, Arrays.equals(expectedLongs, actualLongs)
+                        && longBuffer.get(0) == Long.MIN_VALUE && longBuffer.limit(size + 2).get(size + 1) == Long.MIN_VALUE);
+            }
+        }
+    }
+
+    /**
+     * 检测排序网络：每种长度用随机数据检测，长度不超过16时按0-1原理穷举所有0-1输入
+     */
+    private static void checkSortingNetwork() {
+        for (int n = 0; n <= SortingNetwork.MAX_SIZE; n++) {
+            boolean passed = true;
+            for (int round = 0; round < 1000 && passed; round++) {
+                int[] input = new int[n + 2];
+                for (int i = 0; i < input.length; i++) {
+                    input[i] = RANDOM.nextInt(round % 2 == 0 ? 4 : Integer.MAX_VALUE);
+                }
+                int[] expected = input.clone();
+                Arrays.sort(expected, 1, n + 1);
+                SortingNetwork.sort(input, 1, n);
+                passed = Arrays.equals(expected, input);
+            }
+            for (int mask = 0; n <= 16 && mask < 1 << n && passed; mask++) {
+                int[] input = new int[n];
+                for (int i = 0; i < n; i++) {
+                    input[i] = (mask >>> i) & 1;
+                }
+                SortingNetwork.sort(input, 0, n - 1);
+                for (int i = 1; i < n && passed; i++) {
+                    passed = input[i - 1] <= input[i];
+                }
+            }
+            checkTrue("SortingNetwork", n, passed);
+        }
+    }
+
+    /**
+     * 检测样本排序的并行路径：单核机器上公共线程池的并行度为1，因此另建一个多线程的线程池
+     */
+    private static void checkSampleSort() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int size = SampleSort.SEQUENTIAL_THRESHOLD * 4;
+            for (int[] input : inputs(size)) {
+                int[] expected = input.clone();
+                Arrays.sort(expected);
+                int[] nums = input.clone();
+                SampleSort.sort(nums, pool);
+                check("SampleSort.sort(pool)", input, expected, nums);
+            }
+            int[] constant = new int[size];
+            Arrays.fill(constant, 7);
+            int[] nums = constant.clone();
+            SampleSort.sort(nums, pool);
+            check("SampleSort.sort(pool)", constant, constant, nums);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 检测分段排序：段长从0到基数排序的阈值以上随机分布，包括空段，段之外的元素不应被改动
+     */
+    private static void checkSegmentedSort() {
+        Random random = new Random(20140308);
+        int[] lengths = { 0, 1, 2, 3, 17, 32, 33, 500, 5000 };
+        int segments = 2000;
+        int[] offsets = new int[segments + 1];
+        offsets[0] = 10;
+        for (int i = 0; i < segments; i++) {
+            offsets[i + 1] = offsets[i] + lengths[random.nextInt(lengths.length)];
+        }
+        int[] input = new int[offsets[segments] + 10];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextInt(i % 3 == 0 ? 100 : Integer.MAX_VALUE) - (i % 2 == 0 ? 0 : Integer.MAX_VALUE / 2);
+        }
+        int[] expected = input.clone();
+        for (int i = 0; i < segments; i++) {
+            Arrays.sort(expected, offsets[i], offsets[i + 1]);
+        }
+
+        int[] nums = input.clone();
+        Sort.segmentedSort(nums, offsets);
+        check("segmentedSort", input, expected, nums);
+        nums = input.clone();
+        Sort.parallelSegmentedSort(nums, offsets);
+        check("parallelSegmentedSort", input, expected, nums);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            nums = input.clone();
+            SegmentedSort.sort(nums, offsets, pool);
+            check("SegmentedSort.sort(pool)", input, expected, nums);
+        } finally {
+            pool.shutdown();
+        }
+
+        boolean rejected;
+        try {
+            Sort.segmentedSort(new int[4], new int[] { 0, 3, 2 });
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        checkTrue("segmentedSort(递减的offsets)", 4, rejected);
+    }
+
+    /**
+     * 检测排序指标：以-Dsort.metrics=true运行时每次最外层排序恰好报告一次，否则不报告
+     */
+    private static void checkMetrics() {
+        List<SortMetrics.Report> reports = new ArrayList<>();
+        List<String> selections = new ArrayList<>();
+        SortListener listener = new SortListener() {
+            @Override
+            public void onSortFinished(SortMetrics.Report report) {
+                reports.add(report);
+            }
+
+            @Override
+            public void onEngineSelected(String engine, String reason) {
+                selections.add(engine);
+            }
+        };
+        SortMetrics.addListener(listener);
+        int size = 100000;
+        int[] input = RANDOM.ints(size).toArray();
+        try {
+            Sort.quickSort(input.clone(), 0, size - 1);
+            Sort.mergeSort(input);
+            Sort.radixSortLSD(input.clone());
+            Sort.radixSortLSD(Arrays.copyOf(input, 100)); // 内部改用快速排序，仍只报告一次
+        } finally {
+            SortMetrics.removeListener(listener);
+        }
+        if (!SortMetrics.ENABLED) {
+            checkTrue("metrics(disabled)", size, reports.isEmpty());
+            return;
+        }
+        checkTrue("metrics(count)", size, reports.size() == 4);
+        if (reports.size() == 4) {
+            SortMetrics.Report quick = reports.get(0);
+            checkTrue("metrics(quickSort)", size, quick.engine().equals("quickSort") && quick.comparisons() > size
+                    && quick.swaps() > 0 && quick.heapSortFallbacks() == 0 && quick.maxDepth() > 0);
+            SortMetrics.Report merge = reports.get(1);
+            checkTrue("metrics(mergeSort)", size, merge.engine().equals("mergeSort") && merge.comparisons() > size
+                    && merge.allocatedBytes() == 2L * size * Integer.BYTES);
+            SortMetrics.Report radix = reports.get(2);
+            checkTrue("metrics(radixSortLSD)", size, radix.engine().equals("radixSortLSD")
+                    && radix.moves() >= 4L * size && radix.phaseNanos().containsKey("scatter"));
+            checkTrue("metrics(nested)", 100, reports.get(3).engine().equals("radixSortLSD")
+                    && reports.get(3).comparisons() > 0);
+            for (SortMetrics.Report report : reports) {
+                System.out.println(report);
+            }
+        }
+
+        // 自动选择的算法：已有序、一次交换、取值范围小、随机
+        int[] nums = identity(size);
+        int[] swapped = identity(size);
+        swapped[10] = size / 2;
+        swapped[size / 2] = 10;
+        int[] narrow = new int[size];
+        for (int i = 0; i < size; i++) {
+            narrow[i] = RANDOM.nextInt(1000) - 500;
+        }
+        SortMetrics.addListener(listener);
+        try {
+            Sort.sortAuto(nums);
+            Sort.sortAuto(swapped);
+            Sort.sortAuto(narrow);
+            Sort.sortAuto(input.clone());
+        } finally {
+            SortMetrics.removeListener(listener);
+        }
+        checkTrue("metrics(sortAuto)", size,
+                selections.equals(Arrays.asList("none", "timSort", "countingSort", "radixSortLSD")));
+    }
+
+    private static void checkTrue(String name, int size, boolean passed) {
+        if (!passed) {
+            failures++;
+            System.out.printf("== %s 失败，长度: %d\n", name, size);
+        }
+    }
+
+    private static void check(String name, int[] input, int[] expected, int[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            failures++;
+            System.out.printf("== %s 失败，长度: %d\n", name, input.length);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * 排序网络 - 对不超过{@link #MAX_SIZE}个元素的小区间排序，作为快速排序、归并排序等算法处理小区间的基础算法。
+ *
+ * 网络为32路的Batcher奇偶归并网络（191个比较器）。对n个元素排序时，相当于在末尾补上32 - n个正无穷：
+ * 比较器总是把较大者放到较大的下标，补上的正无穷只会停留在n及其之后的位置，涉及这些位置的比较器不起作用，
+ * 因此只保留两端都小于n的比较器，预先为每个n算好。
+ *
+ * 每个比较器用Math.min/Math.max完成比较交换，JIT将其编译为条件传送指令，没有依赖数据的分支，
+ * 随机数据上不会像插入排序那样频繁地分支预测失败。
+ *
+ * 时间复杂度：O(Nlog2N)个比较器，N不超过32 稳定性：不稳定
+ */
+final class SortingNetwork {
+
+    /**
+     * 能排序的最大区间长度
+     */
+    static final int MAX_SIZE = 32;
+
+    /**
+     * NETWORKS[n]为n个元素的网络，依次存放每个比较器的两个下标
+     */
+    private static final int[][] NETWORKS = new int[MAX_SIZE + 1][];
+
+    static {
+        int[] pairs = new int[2 * 256];
+        int count = 0;
+        for (int p = 1; p < MAX_SIZE; p <<= 1) {
+            for (int k = p; k >= 1; k >>= 1) {
+                for (int j = k % p; j + k < MAX_SIZE; j += 2 * k) {
+                    for (int i = 0; i < Math.min(k, MAX_SIZE - j - k); i++) {
+                        if ((i + j) / (2 * p) == (i + j + k) / (2 * p)) {
+                            pairs[count++] = i + j;
+                            pairs[count++] = i + j + k;
+                        }
+                    }
+                }
+            }
+        }
+        for (int n = 0; n <= MAX_SIZE; n++) {
+            int[] network = new int[count];
+            int length = 0;
+            for (int c = 0; c < count; c += 2) {
+                if (pairs[c + 1] < n) {
+                    network[length++] = pairs[c];
+                    network[length++] = pairs[c + 1];
+                }
+            }
+            NETWORKS[n] = Arrays.copyOf(network, length);
+        }
+    }
+
+    private SortingNetwork() {
+    }
+
+    /**
+     * 对区间nums[beginIndex, endIndex]排序，区间长度不能超过{@link #MAX_SIZE}
+     *
+     * @param nums       要排序的数组
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（包含）
+     */
+    static void sort(int[] nums, int beginIndex, int endIndex) {
+        int[] network = NETWORKS[endIndex - beginIndex + 1];
+        for (int c = 0; c < network.length; c += 2) {
+            int i = beginIndex + network[c];
+            int j = beginIndex + network[c + 1];
+            int a = nums[i];
+            int b = nums[j];
+            nums[i] = Math.min(a, b);
+            nums[j] = Math.max(a, b);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.compared(network.length / 2);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/**
+ * TimSort - 自适应的稳定归并排序，对部分有序的数组效率很高。
+ *
+ * 从左到右识别数组中已有的非降序段与严格降序段（降序段原地翻转），过短的段用二分插入排序补足到minRun长度；
+ * 各段依次入栈，每次入栈后检查栈顶各段长度，不满足X > Y + Z、Y > Z时合并，使合并大致平衡。
+ * 合并时先用指数查找裁掉两端已在最终位置的元素，只把较短的一段拷贝到辅助数组；
+ * 若某一侧连续胜出多次，则进入"飞奔"（galloping）模式，用指数查找+二分查找一次性拷贝一整块，
+ * 进入飞奔的阈值随飞奔的收益自动升降。
+ *
+ * 时间复杂度：有序输入O(N)，最坏O(NlogN) 稳定性：稳定
+ */
+final class TimSort {
+
+    /**
+     * 数组长度小于该值时直接使用二分插入排序，也是minRun的上界
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * 进入飞奔模式的初始阈值；飞奔时两侧整块都短于该值则认为飞奔无益
+     */
+    private static final int MIN_GALLOP = 7;
+
+    /**
+     * 辅助数组的初始长度
+     */
+    private static final int INITIAL_BUFFER_LENGTH = 256;
+
+    private final int[] nums;
+
+    /**
+     * 合并只拷贝较短的一段，辅助数组最长为总长度的一半
+     */
+    private final int bufferLimit;
+    private int[] buffer;
+
+    /**
+     * 当前进入飞奔模式的阈值，飞奔有效时降低，无效时升高
+     */
+    private int gallopThreshold = MIN_GALLOP;
+
+    /**
+     * 待合并段的栈：第i段为nums[runStart[i], runStart[i] + runLength[i])，相邻段首尾相接
+     */
+    private int runCount = 0;
+    private final int[] runStart;
+    private final int[] runLength;
+
+    private TimSort(int[] nums, int length) {
+        this.nums = nums;
+        this.bufferLimit = length >>> 1;
+        this.buffer = new int[Math.min(bufferLimit, INITIAL_BUFFER_LENGTH)];
+
+        // 栈中各段满足X > Y + Z，长度至少按斐波那契数列增长，栈深度不超过不大于length的斐波那契数的个数，
+        // 再留出新段入栈尚未合并时的一格
+        int capacity = 3;
+        for (long previous = 1, current = 2; current <= length; capacity++) {
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        runStart = new int[capacity];
+        runLength = new int[capacity];
+    }
+
+    /**
+     * 对区间nums[beginIndex, endIndex)进行TimSort
+     *
+     * @param nums       要排序的数组
+     * @param beginIndex 起始位置（包含）
+     * @param endIndex   结束位置（不包含）
+     */
+    static void sort(int[] nums, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex;
+        if (length < 2) {
+            return;
+        }
+
+        if (length < MIN_MERGE) {
+            int sortedEnd = nextRun(nums, beginIndex, endIndex);
+            Sort.binaryInsertionSort(nums, beginIndex, endIndex - 1, sortedEnd);
+            return;
+        }
+
+        TimSort timSort = new TimSort(nums, length);
+        int minRun = minRunLength(length);
+        int start = beginIndex;
+        while (start < endIndex) {
+            int end = nextRun(nums, start, endIndex);
+
+            // 段过短时用二分插入排序扩展到minRun，最后一段不足minRun时扩展到结尾
+            if (end - start < minRun) {
+                int forced = endIndex - start <= minRun ? endIndex : start + minRun;
+                Sort.binaryInsertionSort(nums, start, forced - 1, end);
+                end = forced;
+            }
+
+            timSort.pushRun(start, end - start);
+            timSort.restoreInvariants();
+            start = end;
+        }
+
+        // 栈中各段自底向上长度递减，从栈顶依次合并即可保持平衡
+        while (timSort.runCount > 1) {
+            timSort.mergeRuns(timSort.runCount - 2);
+        }
+    }
+
+    /**
+     * 找出从start开始的有序段并返回其结束位置（不包含）：非降序段原样保留，
+     * 严格降序段原地翻转为升序（严格降序才能保证翻转后稳定）
+     */
+    private static int nextRun(int[] nums, int start, int endIndex) {
+        int end = start + 1;
+        if (end == endIndex) {
+            return end;
+        }
+
+        if (nums[end] < nums[start]) {
+            do {
+                end++;
+            } while (end < endIndex && nums[end] < nums[end - 1]);
+            reverse(nums, start, end - 1);
+        } else {
+            do {
+                end++;
+            } while (end < endIndex && nums[end] >= nums[end - 1]);
+        }
+        return end;
+    }
+
+    /**
+     * 翻转区间nums[low, high]
+     */
+    private static void reverse(int[] nums, int low, int high) {
+        while (low < high) {
+            int temp = nums[low];
+            nums[low++] = nums[high];
+            nums[high--] = temp;
+        }
+    }
+
+    /**
+     * 计算最小段长度：把length反复折半直到小于MIN_MERGE，取折半后向上取整的结果，
+     * 使length / minRun恰好是或略小于2的幂，最后的合并尽量平衡
+     */
+    private static int minRunLength(int length) {
+        int shift = 0;
+        while ((length >>> shift) >= MIN_MERGE) {
+            shift++;
+        }
+        return ((length - 1) >>> shift) + 1;
+    }
+
+    private void pushRun(int start, int length) {
+        runStart[runCount] = start;
+        runLength[runCount] = length;
+        runCount++;
+    }
+
+    /**
+     * 合并栈顶的段，直到栈中从底到顶每一段都长于其上两段之和、且每一段都长于其上一段。
+     * 除栈顶三段外还检查第四段，否则合并后更深处的约束可能被破坏
+     */
+    private void restoreInvariants() {
+        while (runCount > 1) {
+            int top = runCount - 1;
+            int z = runLength[top];
+            int y = runLength[top - 1];
+            boolean xTooShort = runCount > 2 && runLength[top - 2] <= y + z;
+            boolean wTooShort = runCount > 3 && runLength[top - 3] <= runLength[top - 2] + y;
+            if (xTooShort || wTooShort) {
+                // Y与X、Z中较短的一段合并
+                mergeRuns(runLength[top - 2] < z ? top - 2 : top - 1);
+            } else if (y <= z) {
+                mergeRuns(top - 1);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 合并栈中第i段与第i + 1段，i为栈顶的前一段或前两段
+     */
+    private void mergeRuns(int i) {
+        int low = runStart[i];
+        int mid = runStart[i + 1];
+        int high = mid + runLength[i + 1];
+
+        runLength[i] += runLength[i + 1];
+        for (int j = i + 1; j < runCount - 1; j++) {
+            runStart[j] = runStart[j + 1];
+            runLength[j] = runLength[j + 1];
+        }
+        runCount--;
+
+        merge(low, mid, high);
+    }
+
+    /**
+     * 合并相邻的有序段nums[low, mid)与nums[mid, high)
+     */
+    private void merge(int low, int mid, int high) {
+        // 左段中不大于右段首元素的前缀已在最终位置
+        int start = gallopForward(nums, low, mid, nums[mid], true);
+        if (start == mid) {
+            return;
+        }
+        // 右段中不小于左段末元素的后缀已在最终位置
+        int end = gallopBackward(nums, mid, high, nums[mid - 1], false);
+
+        if (mid - start <= end - mid) {
+            mergeForward(start, mid, end);
+        } else {
+            mergeBackward(start, mid, end);
+        }
+    }
+
+    /**
+     * 从左向右合并nums[start, mid)与nums[mid, end)：左段较短，拷贝到辅助数组后依次写回
+     */
+    private void mergeForward(int start, int mid, int end) {
+        int[] nums = this.nums;
+        int leftLength = mid - start;
+        int[] buffer = buffer(leftLength);
+        System.arraycopy(nums, start, buffer, 0, leftLength);
+
+        // 裁剪后左段末元素大于右段所有元素，右段总是先取完，循环中无需检查左段是否取完
+        int left = 0; // buffer中左段的下一个元素
+        int right = mid; // nums中右段的下一个元素
+        int dest = start;
+        int threshold = gallopThreshold;
+        while (right < end) {
+            // 逐个比较，直到某一侧连续胜出threshold次；相等时取左段以保持稳定
+            int leftWins = 0;
+            int rightWins = 0;
+            while (right < end && leftWins < threshold && rightWins < threshold) {
+                if (nums[right] < buffer[left]) {
+                    nums[dest++] = nums[right++];
+                    rightWins++;
+                    leftWins = 0;
+                } else {
+                    nums[dest++] = buffer[left++];
+                    leftWins++;
+                    rightWins = 0;
+                }
+            }
+
+            // 飞奔模式：交替找出两侧整块连续胜出的元素，直到两侧的块都短于MIN_GALLOP
+            while (right < end) {
+                int leftEnd = gallopForward(buffer, left, leftLength, nums[right], true);
+                int leftRun = leftEnd - left;
+                System.arraycopy(buffer, left, nums, dest, leftRun);
+                dest += leftRun;
+                left = leftEnd;
+
+                int rightEnd = gallopForward(nums, right, end, buffer[left], false);
+                int rightRun = rightEnd - right;
+                System.arraycopy(nums, right, nums, dest, rightRun);
+                dest += rightRun;
+                right = rightEnd;
+
+                if (leftRun < MIN_GALLOP && rightRun < MIN_GALLOP) {
+                    threshold++;
+                    break;
+                }
+                if (threshold > 1) {
+                    threshold--;
+                }
+            }
+        }
+        gallopThreshold = threshold;
+
+        // 把左段剩余部分补到末尾
+        System.arraycopy(buffer, left, nums, dest, leftLength - left);
+    }
+
+    /**
+     * 从右向左合并nums[start, mid)与nums[mid, end)：右段较短，拷贝到辅助数组后从末尾依次写回
+     */
+    private void mergeBackward(int start, int mid, int end) {
+        int[] nums = this.nums;
+        int rightLength = end - mid;
+        int[] buffer = buffer(rightLength);
+        System.arraycopy(nums, mid, buffer, 0, rightLength);
+
+        // 裁剪后右段首元素小于左段所有元素，左段总是先取完，循环中无需检查右段是否取完
+        int left = mid - 1; // nums中左段的下一个元素
+        int right = rightLength - 1; // buffer中右段的下一个元素
+        int dest = end - 1;
+        int threshold = gallopThreshold;
+        while (left >= start) {
+            // 逐个比较，直到某一侧连续胜出threshold次；相等时取右段以保持稳定
+            int leftWins = 0;
+            int rightWins = 0;
+            while (left >= start && leftWins < threshold && rightWins < threshold) {
+                if (buffer[right] < nums[left]) {
+                    nums[dest--] = nums[left--];
+                    leftWins++;
+                    rightWins = 0;
+                } else {
+                    nums[dest--] = buffer[right--];
+                    rightWins++;
+                    leftWins = 0;
+                }
+            }
+
+            while (left >= start) {
+                int rightBegin = gallopBackward(buffer, 0, right + 1, nums[left], false);
+                int rightRun = right + 1 - rightBegin;
+                dest -= rightRun;
+                System.arraycopy(buffer, rightBegin, nums, dest + 1, rightRun);
+                right = rightBegin - 1;
+
+                int leftBegin = gallopBackward(nums, start, left + 1, buffer[right], true);
+                int leftRun = left + 1 - leftBegin;
+                dest -= leftRun;
+                System.arraycopy(nums, leftBegin, nums, dest + 1, leftRun);
+                left = leftBegin - 1;
+
+                if (leftRun < MIN_GALLOP && rightRun < MIN_GALLOP) {
+                    threshold++;
+                    break;
+                }
+                if (threshold > 1) {
+                    threshold--;
+                }
+            }
+        }
+        gallopThreshold = threshold;
+
+        // 把右段剩余部分补到开头
+        System.arraycopy(buffer, 0, nums, start, right + 1);
+    }
+
+    /**
+     * 在有序区间nums[from, to)中查找key的插入位置，从from端开始按1, 2, 4...的步长指数查找，再二分查找。
+     * upper为true时返回第一个大于key的位置，否则返回第一个不小于key的位置
+     */
+    static int gallopForward(int[] nums, int from, int to, int key, boolean upper) {
+        int low = from;
+        int high = to;
+        for (int offset = 0; offset >= 0 && offset < to - from; offset = (offset << 1) + 1) {
+            int probe = from + offset;
+            if (upper ? nums[probe] > key : nums[probe] >= key) {
+                high = probe;
+                break;
+            }
+            low = probe + 1;
+        }
+        return binarySearch(nums, low, high, key, upper);
+    }
+
+    /**
+     * 与{@link #gallopForward(int[], int, int, int, boolean)}相同，但从to端开始向左指数查找
+     */
+    static int gallopBackward(int[] nums, int from, int to, int key, boolean upper) {
+        int low = from;
+        int high = to;
+        for (int offset = 0; offset >= 0 && offset < to - from; offset = (offset << 1) + 1) {
+            int probe = to - 1 - offset;
+            if (upper ? nums[probe] <= key : nums[probe] < key) {
+                low = probe + 1;
+                break;
+            }
+            high = probe;
+        }
+        return binarySearch(nums, low, high, key, upper);
+    }
+
+    /**
+     * 已知插入位置在[low, high]中，二分查找
+     */
+    private static int binarySearch(int[] nums, int low, int high, int key, boolean upper) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (upper ? nums[mid] > key : nums[mid] >= key) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 保证辅助数组至少能容纳capacity个元素，按倍增扩容但不超过bufferLimit
+     */
+    private int[] buffer(int capacity) {
+        if (buffer.length < capacity) {
+            int grown = (int) Math.min((long) buffer.length << 1, bufferLimit);
+            buffer = new int[Math.max(grown, capacity)];
+        }
+        return buffer;
+    }
+}